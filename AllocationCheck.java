@@ -0,0 +1,98 @@
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+// checks that the alpha-beta search allocates nothing per node once it's warmed up
+// searches positions on this thread, each on a fresh bot so the cache starts empty and with a
+// different node limit, and fits bytes allocated against nodes searched: anything allocated in
+// the hot path shows up as a slope, the fixed cost per call (the returned move) doesn't
+// usage: java AllocationCheck [network file]   (test the neural evaluator instead of the patterns)
+// exits with an error when the search allocates per node
+public class AllocationCheck {
+    private static final int POSITIONS = 40;
+    private static final int WARMUP_ROUNDS = 3;
+    // a full search is a couple hundred nodes (deeper iterations mostly hit the cache)
+    private static final long MAX_NODE_LIMIT = 200;
+    // a little noise from the measuring itself, far below one byte per node
+    private static final double MAX_BYTES_PER_NODE = 0.01;
+
+    public static void main(String[] args) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("this JVM can't count allocated bytes per thread");
+            System.exit(1);
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        NnueEvaluator nnue = args.length > 0 ? NnueEvaluator.load(args[0]) : null;
+
+        // positions from a few stones to a crowded middle game, skipping ones the bot answers
+        // without searching (an instant win or a forced block)
+        List<int[][]> positions = new ArrayList<>();
+        Random random = new Random(11);
+        while (positions.size() < POSITIONS) {
+            int[][] position = GomokuBot.syntheticPosition(random, 4 + positions.size() % 30);
+            if (measure(threads, nnue, position, 0)[1] > 0) positions.add(position);
+        }
+
+        // warm up until the search is compiled
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (int i = 0; i < POSITIONS; i++) measure(threads, nnue, positions.get(i), nodeLimit(i));
+        }
+
+        long[][] calls = new long[POSITIONS][];
+        long minNodes = Long.MAX_VALUE, maxNodes = 0, minBytes = Long.MAX_VALUE, maxBytes = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            calls[i] = measure(threads, nnue, positions.get(i), nodeLimit(i));
+            minBytes = Math.min(minBytes, calls[i][0]);
+            maxBytes = Math.max(maxBytes, calls[i][0]);
+            minNodes = Math.min(minNodes, calls[i][1]);
+            maxNodes = Math.max(maxNodes, calls[i][1]);
+        }
+
+        // least squares slope of bytes over nodes
+        double meanBytes = 0, meanNodes = 0;
+        for (long[] call : calls) {
+            meanBytes += (double) call[0] / POSITIONS;
+            meanNodes += (double) call[1] / POSITIONS;
+        }
+        double covariance = 0, variance = 0;
+        for (long[] call : calls) {
+            covariance += (call[1] - meanNodes) * (call[0] - meanBytes);
+            variance += (call[1] - meanNodes) * (call[1] - meanNodes);
+        }
+        double perNode = variance > 0 ? covariance / variance : 0;
+
+        System.out.println(POSITIONS + " searches with the " + (nnue != null ? "neural" : "pattern") + " evaluator");
+        System.out.println("nodes per call " + minNodes + " to " + maxNodes + ", bytes per call " + minBytes + " to " + maxBytes);
+        System.out.printf("%.4f bytes per node%n", Math.max(0, perNode));
+        if (maxNodes == minNodes) {
+            System.out.println("FAILED: every search took the same number of nodes, nothing to compare");
+            System.exit(1);
+        }
+        if (perNode > MAX_BYTES_PER_NODE) {
+            System.out.println("FAILED: the search allocates per node");
+            System.exit(1);
+        }
+        System.out.println("ok, no allocation per node");
+    }
+
+    // node limits spread from a handful of nodes to a full search
+    private static long nodeLimit(int position) {
+        return 1 + position * MAX_NODE_LIMIT / POSITIONS;
+    }
+
+    // {bytes allocated on this thread, nodes searched} for one search, the bot is set up outside the count
+    private static long[] measure(com.sun.management.ThreadMXBean threads, NnueEvaluator nnue,
+                                  int[][] position, long nodeLimit) {
+        GomokuBot bot = new GomokuBot();
+        if (nnue != null) bot.setEvaluator(nnue.copy());
+        // the node limit or the search depth decides when to stop, not the clock
+        bot.setTimeBudget(600000);
+        bot.setNodeLimit(nodeLimit);
+
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        bot.findBestMove(position);
+        long bytes = threads.getThreadAllocatedBytes(id) - before;
+        return new long[]{bytes, bot.getNodeCount()};
+    }
+}
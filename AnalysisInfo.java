@@ -0,0 +1,24 @@
+// snapshot of what an engine thinks so far, sent to an AnalysisListener while it searches
+// moves are packed as row * 15 + col, scores are from the searching side's point of view
+public class AnalysisInfo {
+    public final int depth;
+    public final int bestMove;
+    public final int score;
+    public final int[] pv;
+    public final int[] candidateMoves;
+    public final int[] candidateScores;
+    public final long nodes;
+    public final String summary;
+
+    public AnalysisInfo(int depth, int bestMove, int score, int[] pv,
+                        int[] candidateMoves, int[] candidateScores, long nodes, String summary) {
+        this.depth = depth;
+        this.bestMove = bestMove;
+        this.score = score;
+        this.pv = pv;
+        this.candidateMoves = candidateMoves;
+        this.candidateScores = candidateScores;
+        this.nodes = nodes;
+        this.summary = summary;
+    }
+}
@@ -0,0 +1,4 @@
+// receives intermediate search results, called on the search thread so keep it quick
+public interface AnalysisListener {
+    void analysisUpdated(AnalysisInfo info);
+}
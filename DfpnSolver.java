@@ -0,0 +1,952 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+// depth-first proof-number solver, proves wins exactly instead of scoring them
+// the attacker only plays threats (moves the bot's threat detection rates as an open three or
+// better, plus any move that makes a four), so "no win found" means no win by threats, not a loss.
+// defender moves are never cut that way: every reply is tried except ones that lose on the spot.
+// usage:
+//   java DfpnSolver <position file> [options]   solve a position
+//     --position NAME   take the board after "position NAME" (so suites/tactics.txt works)
+//     --memory MB       hash table size (default 256, give java enough -Xmx for it)
+//     --threads N       solver threads sharing the table (default: all cores)
+//     --seconds N       stop after N seconds and keep the checkpoint to resume later (default: no limit)
+//     --checkpoint FILE table saved every minute and on exit, loaded at start (default: <position file>.dfpn)
+//     --proof FILE      where to write the proof tree (default: <position file>.proof)
+//   java DfpnSolver verify <proof file>          check a proof tree without the solver
+// boards are 15 rows of 15 characters: '.' empty, 'x' black, 'o' white, black moves when the counts are equal
+//
+// proof file: a header, the board, then one move per line indented one space per ply.
+// an attacker move is followed by the defender replies the proof needed (none after a five),
+// each reply by exactly one attacker move. the defender must never have a five to play, and any
+// reply left out must lose at once: after it the attacker has a five to play, or a move making two
+// fives while the defender has none to play.
+public class DfpnSolver {
+    private static final int BOARD_SIZE = 15;
+    private static final int CELLS = BOARD_SIZE * BOARD_SIZE;
+    private static final int EMPTY = 0;
+
+    private static final int INF = DfpnTable.INF;
+    // 1+epsilon trick: children get a bit more than the second best number, fewer re-expansions
+    private static final double EPSILON = 0.25;
+
+    private static final long MONITOR_MILLIS = 200;
+    private static final long PROGRESS_MILLIS = 10000;
+    private static final long CHECKPOINT_MILLIS = 60000;
+    private static final int MAX_PROOF_LINES = 2000000;
+
+    // node status from move generation
+    private static final int OPEN = 0;
+    private static final int PROVEN = 1;
+    private static final int DISPROVEN = 2;
+
+    private static final long[][] ZOBRIST = new long[3][CELLS];
+    private static final long WHITE_ATTACKS;
+    static {
+        Random keys = new Random(20241019L);
+        for (int player = 1; player <= 2; player++) {
+            for (int i = 0; i < CELLS; i++) {
+                ZOBRIST[player][i] = keys.nextLong();
+            }
+        }
+        WHITE_ATTACKS = keys.nextLong();
+    }
+
+    private final DfpnTable table;
+    private final int[][] rootBoard;
+    private final int threadCount;
+    private final AtomicLong nodes = new AtomicLong();
+
+    // how many threads are inside each node right now, so others look elsewhere
+    private static final int BUSY_SLOTS = 1 << 16;
+    private final AtomicIntegerArray busy = new AtomicIntegerArray(BUSY_SLOTS);
+    // stopped ends the current solve, cancelled is never cleared so a stop between two solves still counts
+    private volatile boolean stopped;
+    private volatile boolean cancelled;
+
+    public DfpnSolver(int[][] board, DfpnTable table, int threadCount) {
+        this.rootBoard = new int[BOARD_SIZE][BOARD_SIZE];
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            System.arraycopy(board[i], 0, rootBoard[i], 0, BOARD_SIZE);
+        }
+        this.table = table;
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    // key for the checkpoint, just the stones
+    public static long positionKey(int[][] board) {
+        long key = 0;
+        for (int i = 0; i < CELLS; i++) {
+            int stone = board[i / BOARD_SIZE][i % BOARD_SIZE];
+            if (stone != EMPTY) key ^= ZOBRIST[stone][i];
+        }
+        return key;
+    }
+
+    public long nodes() {
+        return nodes.get();
+    }
+
+    // ask the solver threads to finish, from any thread, also ends any later solve at once
+    public void stop() {
+        cancelled = true;
+        stopped = true;
+    }
+
+    // proof and disproof number of "attacker wins" for the position, 0 pn means proven
+    // the root is an attacker move when attackerToMove, otherwise every defender move is a root child
+    public long solve(int attacker, boolean attackerToMove) throws InterruptedException {
+        stopped = cancelled;
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            Worker worker = new Worker(t, attacker);
+            threads[t] = new Thread(() -> {
+                while (!stopped) {
+                    long numbers = worker.mid(attackerToMove, 0, INF, INF);
+                    if (!open(numbers)) break;
+                }
+                nodes.addAndGet(worker.localNodes % 1024);
+                // one thread finishing the root is enough for all of them
+                stopped = true;
+            }, "dfpn-" + t);
+            threads[t].setDaemon(true);
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return table.probe(new Worker(0, attacker).hash);
+    }
+
+    // still worth searching: not solved, and not stuck at INF (sums clamp there, and a long solve can
+    // count the same positions often enough to reach it) where the root thresholds can't push it further
+    private static boolean open(long numbers) {
+        int pn = (int) (numbers >>> 32), dn = (int) numbers;
+        return pn != 0 && dn != 0 && pn < INF && dn < INF;
+    }
+
+    // proven or disproven for sure, false for a root that ran into INF
+    static boolean decided(long entry) {
+        return entry != 0 && (DfpnTable.pn(entry) == 0 || DfpnTable.dn(entry) == 0);
+    }
+
+    // one solver thread with its own board
+    private class Worker {
+        final int id;
+        final int attacker;
+        final int defender;
+        final int[][] board = new int[BOARD_SIZE][BOARD_SIZE];
+        long hash;
+        long localNodes;
+
+        // scratch for move generation
+        final int[] attackerFives = new int[CELLS];
+        final int[] defenderFives = new int[CELLS];
+        final boolean[] marked = new boolean[CELLS];
+
+        Worker(int id, int attacker) {
+            this.id = id;
+            this.attacker = attacker;
+            this.defender = 3 - attacker;
+            for (int i = 0; i < BOARD_SIZE; i++) {
+                System.arraycopy(rootBoard[i], 0, board[i], 0, BOARD_SIZE);
+            }
+            hash = positionKey(board) ^ (attacker == 2 ? WHITE_ATTACKS : 0);
+        }
+
+        void play(int cell, int player) {
+            board[cell / BOARD_SIZE][cell % BOARD_SIZE] = player;
+            hash ^= ZOBRIST[player][cell];
+        }
+
+        void undo(int cell, int player) {
+            board[cell / BOARD_SIZE][cell % BOARD_SIZE] = EMPTY;
+            hash ^= ZOBRIST[player][cell];
+        }
+
+        // multiple iterative deepening: search below this node until its numbers pass the thresholds
+        // returns the node's numbers as (pn << 32) | dn, in case the table had to drop them
+        long mid(boolean or, int ply, int thpn, int thdn) {
+            long key = hash;
+
+            // already solved, or known to be over the thresholds from an earlier visit
+            long known = table.probe(key);
+            if (known != 0) {
+                int knownPn = DfpnTable.pn(known), knownDn = DfpnTable.dn(known);
+                if (knownPn == 0 || knownDn == 0 || knownPn >= thpn || knownDn >= thdn) {
+                    return ((long) knownPn << 32) | knownDn;
+                }
+            }
+
+            if (++localNodes % 1024 == 0) nodes.addAndGet(1024);
+            int[] result = new int[1];
+            int[] children = generate(or, ply, result);
+            if (result[0] != OPEN) {
+                int move = children.length > 0 ? children[0] : DfpnTable.NO_MOVE;
+                if (result[0] == PROVEN) {
+                    table.store(key, 0, INF, move, 1);
+                    return INF;
+                }
+                table.store(key, INF, 0, DfpnTable.NO_MOVE, 1);
+                return (long) INF << 32;
+            }
+
+            int player = or ? attacker : defender;
+            int n = children.length;
+            // numbers seen last, kept when the table loses a child
+            int[] childPn = new int[n];
+            int[] childDn = new int[n];
+            Arrays.fill(childPn, 1);
+            Arrays.fill(childDn, 1);
+            long startNodes = localNodes;
+            int slot = (int) (key & (BUSY_SLOTS - 1));
+            busy.incrementAndGet(slot);
+            int pn = 1, dn = 1, bestMove = DfpnTable.NO_MOVE;
+            try {
+                while (true) {
+                    // collect the children's numbers from the table
+                    long sumPn = 0, sumDn = 0;
+                    int minPn = INF, minDn = INF;
+                    int best = -1, bestValue = Integer.MAX_VALUE, secondValue = INF;
+                    for (int i = 0; i < n; i++) {
+                        long childKey = key ^ ZOBRIST[player][children[i]];
+                        long d = table.probe(childKey);
+                        if (d != 0) {
+                            childPn[i] = DfpnTable.pn(d);
+                            childDn[i] = DfpnTable.dn(d);
+                        }
+                        sumPn += childPn[i];
+                        sumDn += childDn[i];
+                        minPn = Math.min(minPn, childPn[i]);
+                        minDn = Math.min(minDn, childDn[i]);
+
+                        // pick by the number that matters here, counting other threads already in there
+                        int value = or ? childPn[i] : childDn[i];
+                        if (value == 0 || value >= INF) {
+                            if (value == 0 && best < 0) best = i;
+                            continue;
+                        }
+                        value += busy.get((int) (childKey & (BUSY_SLOTS - 1)));
+                        // helper threads break ties differently so they spread out
+                        if (value < bestValue || (value == bestValue && id > 0 && (i + id) % 2 == 0)) {
+                            secondValue = Math.min(secondValue, bestValue);
+                            bestValue = value;
+                            best = i;
+                        } else {
+                            secondValue = Math.min(secondValue, value);
+                        }
+                    }
+                    if (or) {
+                        pn = minPn;
+                        dn = (int) Math.min(INF, sumDn);
+                    } else {
+                        pn = (int) Math.min(INF, sumPn);
+                        dn = minDn;
+                    }
+                    if (pn == 0 || dn == 0 || pn >= thpn || dn >= thdn || stopped || best < 0) {
+                        if (pn == 0 && or) bestMove = provenChild(children, childPn);
+                        break;
+                    }
+                    bestMove = children[best];
+
+                    // thresholds for the child, so it returns as soon as another sibling looks better
+                    int childThpn, childThdn;
+                    if (or) {
+                        childThpn = (int) Math.min(thpn, (long) Math.ceil(secondValue * (1 + EPSILON)) + 1);
+                        childThdn = thdn >= INF ? INF : (int) Math.min(INF, thdn - (long) dn + childDn[best]);
+                    } else {
+                        childThdn = (int) Math.min(thdn, (long) Math.ceil(secondValue * (1 + EPSILON)) + 1);
+                        childThpn = thpn >= INF ? INF : (int) Math.min(INF, thpn - (long) pn + childPn[best]);
+                    }
+                    play(children[best], player);
+                    long numbers = mid(!or, ply + 1, childThpn, childThdn);
+                    undo(children[best], player);
+                    childPn[best] = (int) (numbers >>> 32);
+                    childDn[best] = (int) numbers;
+                }
+            } finally {
+                busy.decrementAndGet(slot);
+            }
+            table.store(key, pn, dn, bestMove, localNodes - startNodes + 1);
+            return ((long) pn << 32) | dn;
+        }
+
+        private int provenChild(int[] children, int[] childPn) {
+            for (int i = 0; i < children.length; i++) {
+                if (childPn[i] == 0) return children[i];
+            }
+            return DfpnTable.NO_MOVE;
+        }
+
+        // children of the current position, result[0] says if the node is already decided
+        // a proven attacker node returns the winning move as its only child
+        int[] generate(boolean or, int ply, int[] result) {
+            int attackerFiveCount = fiveSquares(attacker, attackerFives);
+            int defenderFiveCount = fiveSquares(defender, defenderFives);
+            result[0] = OPEN;
+
+            if (or) {
+                if (attackerFiveCount > 0) {
+                    result[0] = PROVEN;
+                    return new int[]{attackerFives[0]};
+                }
+                // the defender threatens five, the attacker has to block, and the block has to be a threat
+                if (defenderFiveCount > 0) {
+                    int block = defenderFives[0];
+                    if (defenderFiveCount == 1 && isThreat(block)) return new int[]{block};
+                    result[0] = DISPROVEN;
+                    return new int[0];
+                }
+                int[] moves = threatMoves();
+                if (moves.length == 0) result[0] = DISPROVEN;
+                return moves;
+            }
+
+            if (defenderFiveCount > 0) {
+                result[0] = DISPROVEN;
+                return new int[0];
+            }
+            if (attackerFiveCount >= 2) {
+                result[0] = PROVEN;
+                return new int[0];
+            }
+            if (attackerFiveCount == 1) return new int[]{attackerFives[0]};
+
+            // attacker moves that would make two fives at once
+            int[] doubles = doubleThreats();
+            if (doubles.length == 0) {
+                // the attacker let go of the initiative, only the root may start from a quiet position
+                if (ply > 0) {
+                    result[0] = DISPROVEN;
+                    return new int[0];
+                }
+                return emptyCells();
+            }
+
+            // replies that could matter: on the lines of those moves, or making a four of our own
+            Arrays.fill(marked, false);
+            for (int w : doubles) {
+                int row = w / BOARD_SIZE, col = w % BOARD_SIZE;
+                for (int dir = 0; dir < 4; dir++) {
+                    for (int k = -4; k <= 4; k++) {
+                        int r = row + k * GomokuBot.DIR_ROW[dir], c = col + k * GomokuBot.DIR_COL[dir];
+                        if (GomokuBot.isValidSpot(r, c) && board[r][c] == EMPTY) marked[r * BOARD_SIZE + c] = true;
+                    }
+                }
+            }
+            int[] replies = new int[CELLS];
+            int count = 0;
+            for (int cell = 0; cell < CELLS; cell++) {
+                int row = cell / BOARD_SIZE, col = cell % BOARD_SIZE;
+                if (board[row][col] != EMPTY) continue;
+                boolean four = fivesThrough(cell, defender) > 0;
+                if (!marked[cell] && !four) continue;
+                // drop replies after which a double threat still works
+                if (!four && stillDouble(cell, doubles)) continue;
+                replies[count++] = cell;
+            }
+            if (count == 0) result[0] = PROVEN;
+            return Arrays.copyOf(replies, count);
+        }
+
+        // attacker candidates from the threat detection, best threats first
+        private int[] threatMoves() {
+            int[] moves = new int[CELLS];
+            int[] scores = new int[CELLS];
+            int count = 0;
+            for (int cell = 0; cell < CELLS; cell++) {
+                int row = cell / BOARD_SIZE, col = cell % BOARD_SIZE;
+                if (board[row][col] != EMPTY || !nearStones(row, col)) continue;
+                int level = GomokuBot.threatLevelFor(board, row, col, attacker);
+                boolean four = fivesThrough(cell, attacker) > 0;
+                if (level < GomokuBot.THREAT_OPEN_THREE && !four) continue;
+                moves[count] = cell;
+                scores[count] = (four ? 10 : level) * 1000000 + GomokuBot.scoreMoveFor(board, row, col, attacker);
+                count++;
+            }
+            // insertion sort, there are never many
+            for (int i = 1; i < count; i++) {
+                int m = moves[i], s = scores[i], j = i - 1;
+                while (j >= 0 && scores[j] < s) {
+                    moves[j + 1] = moves[j];
+                    scores[j + 1] = scores[j];
+                    j--;
+                }
+                moves[j + 1] = m;
+                scores[j + 1] = s;
+            }
+            return Arrays.copyOf(moves, count);
+        }
+
+        private boolean isThreat(int cell) {
+            int row = cell / BOARD_SIZE, col = cell % BOARD_SIZE;
+            return GomokuBot.threatLevelFor(board, row, col, attacker) >= GomokuBot.THREAT_OPEN_THREE
+                    || fivesThrough(cell, attacker) > 0;
+        }
+
+        private int[] doubleThreats() {
+            int[] moves = new int[CELLS];
+            int count = 0;
+            for (int cell = 0; cell < CELLS; cell++) {
+                int row = cell / BOARD_SIZE, col = cell % BOARD_SIZE;
+                if (board[row][col] != EMPTY || !nearStones(row, col)) continue;
+                board[row][col] = attacker;
+                if (fivesThrough(cell, attacker) >= 2) moves[count++] = cell;
+                board[row][col] = EMPTY;
+            }
+            return Arrays.copyOf(moves, count);
+        }
+
+        // after the defender plays reply, does some double threat still make two fives
+        private boolean stillDouble(int reply, int[] doubles) {
+            int replyRow = reply / BOARD_SIZE, replyCol = reply % BOARD_SIZE;
+            board[replyRow][replyCol] = defender;
+            boolean found = false;
+            for (int w : doubles) {
+                if (w == reply) continue;
+                int row = w / BOARD_SIZE, col = w % BOARD_SIZE;
+                board[row][col] = attacker;
+                found = fivesThrough(w, attacker) >= 2;
+                board[row][col] = EMPTY;
+                if (found) break;
+            }
+            board[replyRow][replyCol] = EMPTY;
+            return found;
+        }
+
+        // empty cells where player would complete five, written into out
+        private int fiveSquares(int player, int[] out) {
+            int count = 0;
+            for (int row = 0; row < BOARD_SIZE; row++) {
+                for (int col = 0; col < BOARD_SIZE; col++) {
+                    if (board[row][col] != EMPTY || !nearStones(row, col)) continue;
+                    if (GomokuBot.checkWinAt(board, row, col, player)) out[count++] = row * BOARD_SIZE + col;
+                }
+            }
+            return count;
+        }
+
+        // empty cells on the lines through cell that would complete a five for player
+        private int fivesThrough(int cell, int player) {
+            int row = cell / BOARD_SIZE, col = cell % BOARD_SIZE;
+            if (!fourPossible(row, col, player)) return 0;
+            int saved = board[row][col];
+            board[row][col] = player;
+            int count = 0;
+            for (int dir = 0; dir < 4; dir++) {
+                for (int k = -4; k <= 4; k++) {
+                    if (k == 0) continue;
+                    int r = row + k * GomokuBot.DIR_ROW[dir], c = col + k * GomokuBot.DIR_COL[dir];
+                    if (GomokuBot.isValidSpot(r, c) && board[r][c] == EMPTY && GomokuBot.checkWinAt(board, r, c, player)) count++;
+                }
+            }
+            board[row][col] = saved;
+            return count;
+        }
+
+        // a four needs three more of player's stones on one line within reach, quick check before the slow one
+        private boolean fourPossible(int row, int col, int player) {
+            for (int dir = 0; dir < 4; dir++) {
+                int stones = 0;
+                for (int k = -4; k <= 4; k++) {
+                    int r = row + k * GomokuBot.DIR_ROW[dir], c = col + k * GomokuBot.DIR_COL[dir];
+                    if (k != 0 && GomokuBot.isValidSpot(r, c) && board[r][c] == player) stones++;
+                }
+                if (stones >= 3) return true;
+            }
+            return false;
+        }
+
+        private int[] emptyCells() {
+            int[] cells = new int[CELLS];
+            int count = 0;
+            for (int cell = 0; cell < CELLS; cell++) {
+                if (board[cell / BOARD_SIZE][cell % BOARD_SIZE] == EMPTY) cells[count++] = cell;
+            }
+            return Arrays.copyOf(cells, count);
+        }
+
+        private boolean nearStones(int row, int col) {
+            for (int r = Math.max(0, row - 2); r <= Math.min(BOARD_SIZE - 1, row + 2); r++) {
+                for (int c = Math.max(0, col - 2); c <= Math.min(BOARD_SIZE - 1, col + 2); c++) {
+                    if (board[r][c] != EMPTY) return true;
+                }
+            }
+            return false;
+        }
+
+        // write the proof below the current position, re-solving parts the table already forgot
+        void writeProof(boolean or, int ply, PrintWriter out, int[] lines) throws IOException {
+            int[] result = new int[1];
+            int[] children = generate(or, ply, result);
+            int player = or ? attacker : defender;
+
+            if (or) {
+                if (result[0] == PROVEN) {
+                    printMove(out, ply, children[0], lines);
+                    return;
+                }
+                // the move stored with this node first, then children the table knows are proven,
+                // and only then re-prove children one by one
+                long d = table.probe(hash);
+                int stored = d != 0 && DfpnTable.pn(d) == 0 ? DfpnTable.move(d) : DfpnTable.NO_MOVE;
+                for (int pass = 0; pass < 3; pass++) {
+                    for (int child : children) {
+                        if (pass == 0 && child != stored) continue;
+                        if (pass == 1) {
+                            long childEntry = table.probe(hash ^ ZOBRIST[player][child]);
+                            if (childEntry == 0 || DfpnTable.pn(childEntry) != 0) continue;
+                        }
+                        play(child, player);
+                        if (prove(false, ply + 1)) {
+                            printMove(out, ply, child, lines);
+                            writeProof(false, ply + 1, out, lines);
+                            undo(child, player);
+                            return;
+                        }
+                        undo(child, player);
+                    }
+                }
+                throw new IOException("lost the proof at ply " + ply);
+            }
+
+            for (int child : children) {
+                printMove(out, ply, child, lines);
+                play(child, player);
+                if (!prove(true, ply + 1)) throw new IOException("lost the proof at ply " + ply);
+                writeProof(true, ply + 1, out, lines);
+                undo(child, player);
+            }
+        }
+
+        private boolean prove(boolean or, int ply) {
+            long d = table.probe(hash);
+            if (d != 0 && DfpnTable.pn(d) == 0) return true;
+            if (d != 0 && DfpnTable.dn(d) == 0) return false;
+            long numbers;
+            do {
+                numbers = mid(or, ply, INF, INF);
+            } while (open(numbers));
+            return numbers >>> 32 == 0;
+        }
+
+        private void printMove(PrintWriter out, int ply, int cell, int[] lines) throws IOException {
+            if (++lines[0] > MAX_PROOF_LINES) throw new IOException("proof tree has more than " + MAX_PROOF_LINES + " moves");
+            for (int i = 0; i < ply; i++) out.print(' ');
+            out.println(GomokuBot.moveName(cell));
+        }
+    }
+
+    // write the proof tree for a position solve() proved
+    public void writeProof(File file, int attacker, boolean attackerToMove) throws IOException {
+        stopped = false;
+        Worker worker = new Worker(0, attacker);
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            out.println("# gomoku proof tree");
+            out.println("attacker " + (attacker == 1 ? "x" : "o"));
+            out.println("root " + (attackerToMove ? "attacker" : "defender"));
+            for (int[] row : rootBoard) {
+                StringBuilder line = new StringBuilder();
+                for (int cell : row) line.append(cell == 1 ? 'x' : (cell == 2 ? 'o' : '.'));
+                out.println(line);
+            }
+            worker.writeProof(attackerToMove, 0, out, new int[1]);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 2 && args[0].equals("verify")) {
+            String problem = ProofVerifier.verify(new File(args[1]));
+            if (problem != null) {
+                System.out.println("proof is NOT valid: " + problem);
+                System.exit(1);
+            }
+            System.out.println("proof is valid");
+            return;
+        }
+        if (args.length == 0) {
+            System.out.println("usage: java DfpnSolver <position file> [--position NAME] [--memory MB] [--threads N]"
+                    + " [--seconds N] [--checkpoint FILE] [--proof FILE]");
+            System.out.println("       java DfpnSolver verify <proof file>");
+            return;
+        }
+
+        String positionPath = null, positionName = null, checkpointPath = null, proofPath = null;
+        long memoryMb = 256;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seconds = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--position": positionName = args[++i]; break;
+                case "--memory": memoryMb = Long.parseLong(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--seconds": seconds = Long.parseLong(args[++i]); break;
+                case "--checkpoint": checkpointPath = args[++i]; break;
+                case "--proof": proofPath = args[++i]; break;
+                default: positionPath = args[i];
+            }
+        }
+        String base = positionPath + (positionName != null ? "." + positionName : "");
+        File checkpoint = new File(checkpointPath != null ? checkpointPath : base + ".dfpn");
+        File proof = new File(proofPath != null ? proofPath : base + ".proof");
+
+        int[][] board = readBoard(positionPath, positionName);
+        long rootKey = positionKey(board);
+        int stones = 0;
+        for (int[] row : board) for (int cell : row) if (cell != EMPTY) stones++;
+        int toMove = stones % 2 == 0 ? 1 : 2;
+        String toMoveName = toMove == 1 ? "black (x)" : "white (o)";
+
+        DfpnTable table = new DfpnTable(memoryMb * 1024 * 1024);
+        if (checkpoint.exists()) {
+            long loaded = table.load(checkpoint, rootKey);
+            System.out.println("resumed " + loaded + " entries from " + checkpoint);
+        }
+        DfpnSolver solver = new DfpnSolver(board, table, threads);
+
+        // progress, checkpoints and the time limit run on their own thread
+        long start = System.currentTimeMillis();
+        long limitMillis = seconds * 1000;
+        AtomicBoolean timedOut = new AtomicBoolean();
+        Thread monitor = new Thread(() -> {
+            long lastCheckpoint = System.currentTimeMillis();
+            long lastProgress = lastCheckpoint;
+            try {
+                while (true) {
+                    Thread.sleep(MONITOR_MILLIS);
+                    long now = System.currentTimeMillis();
+                    if (limitMillis > 0 && now - start >= limitMillis) {
+                        timedOut.set(true);
+                        solver.stop();
+                        return;
+                    }
+                    if (now - lastProgress >= PROGRESS_MILLIS) {
+                        System.out.printf("%6ds  %,d nodes  table %.0f%% full%n", (now - start) / 1000, solver.nodes(),
+                                table.fill() * 100);
+                        lastProgress = now;
+                    }
+                    if (now - lastCheckpoint >= CHECKPOINT_MILLIS) {
+                        table.save(checkpoint, rootKey);
+                        lastCheckpoint = now;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // solve finished
+            } catch (IOException e) {
+                System.out.println("checkpoint failed: " + e.getMessage());
+            }
+        }, "dfpn-monitor");
+        monitor.setDaemon(true);
+        monitor.start();
+
+        // ctrl-c pauses: stop the threads and the monitor and keep the table for next time
+        Thread pause = new Thread(() -> {
+            solver.stop();
+            try {
+                monitor.interrupt();
+                monitor.join();
+                table.save(checkpoint, rootKey);
+                System.out.println("paused, table saved to " + checkpoint);
+            } catch (IOException | InterruptedException e) {
+                System.out.println("checkpoint failed: " + e.getMessage());
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(pause);
+
+        System.out.println("solving for " + toMoveName + " to move with " + threads + " threads, "
+                + table.capacity() + " table entries");
+        int opponent = 3 - toMove;
+        String verdict;
+        int attacker;
+        boolean attackerToMove;
+        long root = solver.solve(toMove, true);
+        if (root != 0 && DfpnTable.pn(root) == 0) {
+            verdict = toMoveName + " wins, first move " + GomokuBot.moveName(DfpnTable.move(root));
+            attacker = toMove;
+            attackerToMove = true;
+        } else if (timedOut.get()) {
+            verdict = null;
+            attacker = 0;
+            attackerToMove = false;
+        } else {
+            // no threat win for the side to move, see if every move it has loses to threats
+            boolean firstDecided = decided(root);
+            root = solver.solve(opponent, false);
+            if (root != 0 && DfpnTable.pn(root) == 0) {
+                verdict = toMoveName + " loses whatever it plays";
+                attacker = opponent;
+                attackerToMove = false;
+            } else if (timedOut.get()) {
+                verdict = null;
+                attacker = 0;
+                attackerToMove = false;
+            } else if (firstDecided && decided(root)) {
+                verdict = "no forced win by threats for either side";
+                attacker = 0;
+                attackerToMove = false;
+            } else {
+                // a root stuck at INF, more searching the same way won't change it
+                verdict = "no result, the proof numbers grew too big to settle it";
+                attacker = 0;
+                attackerToMove = false;
+            }
+        }
+        // let a checkpoint the monitor is in the middle of finish first
+        monitor.interrupt();
+        monitor.join();
+        long millis = System.currentTimeMillis() - start;
+
+        if (verdict == null) {
+            System.out.println("stopped after " + millis / 1000 + "s and " + solver.nodes()
+                    + " nodes, run the same command again to resume");
+            return; // the shutdown hook saves the table
+        }
+        Runtime.getRuntime().removeShutdownHook(pause);
+        System.out.println(verdict + " (" + solver.nodes() + " nodes, " + millis + "ms)");
+        table.save(checkpoint, rootKey);
+        if (attacker != 0) {
+            solver.writeProof(proof, attacker, attackerToMove);
+            System.out.println("proof tree written to " + proof + ", check it with: java DfpnSolver verify " + proof);
+        }
+    }
+
+    // first 15 board rows in the file, or the ones after "position NAME"
+    private static int[][] readBoard(String path, String name) throws IOException {
+        int[][] board = new int[BOARD_SIZE][BOARD_SIZE];
+        try (BufferedReader in = new BufferedReader(new FileReader(path))) {
+            boolean reading = name == null;
+            int row = 0;
+            String line;
+            while (row < BOARD_SIZE && (line = in.readLine()) != null) {
+                line = line.trim();
+                if (!reading) {
+                    reading = line.equals("position " + name);
+                    continue;
+                }
+                if (line.length() != BOARD_SIZE || line.startsWith("#")) continue;
+                for (int col = 0; col < BOARD_SIZE; col++) {
+                    char c = line.charAt(col);
+                    board[row][col] = c == 'x' ? 1 : (c == 'o' ? 2 : EMPTY);
+                }
+                row++;
+            }
+            if (row < BOARD_SIZE) {
+                throw new IOException(name == null ? path + " has no 15x15 board" : "no position " + name + " in " + path);
+            }
+        }
+        return board;
+    }
+
+    // checks a proof file with nothing but the rules, shares no code with the solver
+    static class ProofVerifier {
+        // its own copies on purpose, so a bug in the shared board code can't hide a bad proof
+        private static final int[] DIR_ROW = {0, 1, 1, 1};
+        private static final int[] DIR_COL = {1, 0, 1, -1};
+
+        private final int[][] board = new int[BOARD_SIZE][BOARD_SIZE];
+        private int attacker, defender;
+
+        // a tree node: the move and the replies listed under it
+        private static class Node {
+            final int move;
+            final List<Node> children = new ArrayList<>();
+
+            Node(int move) {
+                this.move = move;
+            }
+        }
+
+        // null when the proof holds, otherwise what is wrong with it
+        static String verify(File file) throws IOException {
+            ProofVerifier verifier = new ProofVerifier();
+            boolean attackerToMove;
+            Node root = new Node(-1);
+            try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+                String line = in.readLine();
+                if (line == null || !line.startsWith("#")) return "missing header";
+                line = in.readLine();
+                if (line == null || !line.startsWith("attacker ")) return "missing attacker line";
+                verifier.attacker = line.endsWith("x") ? 1 : 2;
+                verifier.defender = 3 - verifier.attacker;
+                line = in.readLine();
+                if (line == null || !line.startsWith("root ")) return "missing root line";
+                attackerToMove = line.endsWith("attacker");
+                for (int row = 0; row < BOARD_SIZE; row++) {
+                    line = in.readLine();
+                    if (line == null || line.length() != BOARD_SIZE) return "bad board row " + (row + 1);
+                    for (int col = 0; col < BOARD_SIZE; col++) {
+                        char c = line.charAt(col);
+                        verifier.board[row][col] = c == 'x' ? 1 : (c == 'o' ? 2 : EMPTY);
+                    }
+                }
+
+                // rebuild the tree from the indentation
+                List<Node> path = new ArrayList<>();
+                path.add(root);
+                int lineNumber = 3 + BOARD_SIZE;
+                while ((line = in.readLine()) != null) {
+                    lineNumber++;
+                    if (line.trim().isEmpty()) continue;
+                    int depth = 0;
+                    while (line.charAt(depth) == ' ') depth++;
+                    if (depth >= path.size()) return "line " + lineNumber + " is indented too far";
+                    Node node;
+                    try {
+                        node = new Node(parseMove(line.trim()));
+                    } catch (RuntimeException e) {
+                        return "line " + lineNumber + ": can't read move '" + line.trim() + "'";
+                    }
+                    while (path.size() > depth + 1) path.remove(path.size() - 1);
+                    path.get(depth).children.add(node);
+                    path.add(node);
+                }
+            }
+            return attackerToMove ? verifier.checkAttacker(root.children, "") : verifier.checkDefender(root.children, "");
+        }
+
+        // attacker to move: exactly one move, a five ends the line
+        private String checkAttacker(List<Node> moves, String line) {
+            if (moves.size() != 1) return "attacker needs exactly one move after '" + line + "', found " + moves.size();
+            Node move = moves.get(0);
+            int row = move.move / BOARD_SIZE, col = move.move % BOARD_SIZE;
+            if (board[row][col] != EMPTY) return "occupied spot " + moveName(move.move) + " after '" + line + "'";
+            String here = line + " " + moveName(move.move);
+            board[row][col] = attacker;
+            String problem;
+            if (isFive(row, col, attacker)) {
+                problem = move.children.isEmpty() ? null : "moves after the winning five at '" + here + "'";
+            } else {
+                problem = checkDefender(move.children, here);
+            }
+            board[row][col] = EMPTY;
+            return problem;
+        }
+
+        // defender to move: every listed reply must be proven, every other reply must lose at once
+        private String checkDefender(List<Node> replies, String line) {
+            Set<Integer> listed = new HashSet<>();
+            for (Node reply : replies) {
+                if (!listed.add(reply.move)) return "reply " + moveName(reply.move) + " listed twice after '" + line + "'";
+            }
+
+            // the defender is to move, so a five of its own just wins
+            List<Integer> defenderFives = fiveSpots(defender);
+            if (!defenderFives.isEmpty()) {
+                return "defender wins with " + moveName(defenderFives.get(0)) + " after '" + line + "'";
+            }
+
+            // fives the attacker could play now, and attacker moves that would make two at once
+            List<Integer> attackerFives = fiveSpots(attacker);
+            List<Integer> doubles = new ArrayList<>();
+            for (int cell = 0; cell < CELLS; cell++) {
+                int row = cell / BOARD_SIZE, col = cell % BOARD_SIZE;
+                if (board[row][col] == EMPTY && fivesAfter(row, col, attacker) >= 2) doubles.add(cell);
+            }
+
+            boolean anyEmpty = false;
+            for (int cell = 0; cell < CELLS; cell++) {
+                int row = cell / BOARD_SIZE, col = cell % BOARD_SIZE;
+                if (board[row][col] != EMPTY) continue;
+                anyEmpty = true;
+                if (listed.contains(cell)) continue;
+                if (!losesAtOnce(cell, attackerFives, doubles)) {
+                    return "defender reply " + moveName(cell) + " after '" + line + "' is not covered";
+                }
+            }
+            if (!anyEmpty) return "board is full (a draw) after '" + line + "'";
+
+            for (Node reply : replies) {
+                int row = reply.move / BOARD_SIZE, col = reply.move % BOARD_SIZE;
+                if (board[row][col] != EMPTY) return "occupied spot " + moveName(reply.move) + " after '" + line + "'";
+                board[row][col] = defender;
+                String problem = isFive(row, col, defender)
+                        ? "defender makes five with " + moveName(reply.move) + " after '" + line + "'"
+                        : checkAttacker(reply.children, line + " " + moveName(reply.move));
+                board[row][col] = EMPTY;
+                if (problem != null) return problem;
+            }
+            return null;
+        }
+
+        // after this defender reply the attacker can make five right away, or make two fives at once
+        // while the defender has none to play (a defender stone only ever takes attacker chances away,
+        // so the double threats to check are among the ones from before the reply)
+        private boolean losesAtOnce(int reply, List<Integer> attackerFives, List<Integer> doubles) {
+            int replyRow = reply / BOARD_SIZE, replyCol = reply % BOARD_SIZE;
+            if (isFive(replyRow, replyCol, defender)) return false;
+            for (int five : attackerFives) {
+                if (five != reply) return true;
+            }
+
+            // the reply may have made a four of its own
+            if (fivesAfter(replyRow, replyCol, defender) > 0) return false;
+
+            board[replyRow][replyCol] = defender;
+            boolean loses = false;
+            for (int w : doubles) {
+                if (w != reply && fivesAfter(w / BOARD_SIZE, w % BOARD_SIZE, attacker) >= 2) {
+                    loses = true;
+                    break;
+                }
+            }
+            board[replyRow][replyCol] = EMPTY;
+            return loses;
+        }
+
+        private List<Integer> fiveSpots(int player) {
+            List<Integer> spots = new ArrayList<>();
+            for (int cell = 0; cell < CELLS; cell++) {
+                int row = cell / BOARD_SIZE, col = cell % BOARD_SIZE;
+                if (board[row][col] == EMPTY && isFive(row, col, player)) spots.add(cell);
+            }
+            return spots;
+        }
+
+        // empty spots on the lines through (row, col) that make five once player stands there
+        private int fivesAfter(int row, int col, int player) {
+            board[row][col] = player;
+            int fives = 0;
+            for (int dir = 0; dir < 4; dir++) {
+                for (int k = -4; k <= 4; k++) {
+                    int r = row + k * DIR_ROW[dir], c = col + k * DIR_COL[dir];
+                    if (k != 0 && r >= 0 && r < BOARD_SIZE && c >= 0 && c < BOARD_SIZE
+                            && board[r][c] == EMPTY && isFive(r, c, player)) fives++;
+                }
+            }
+            board[row][col] = EMPTY;
+            return fives;
+        }
+
+        // would a stone of player on this empty spot (or this stone) make five or more
+        private boolean isFive(int row, int col, int player) {
+            for (int dir = 0; dir < 4; dir++) {
+                int count = 1;
+                for (int d = -1; d <= 1; d += 2) {
+                    int r = row + d * DIR_ROW[dir], c = col + d * DIR_COL[dir];
+                    while (r >= 0 && r < BOARD_SIZE && c >= 0 && c < BOARD_SIZE && board[r][c] == player) {
+                        count++;
+                        r += d * DIR_ROW[dir];
+                        c += d * DIR_COL[dir];
+                    }
+                }
+                if (count >= 5) return true;
+            }
+            return false;
+        }
+
+        // board coordinates like H8, columns A-O from the left, rows 1-15 from the top
+        private static String moveName(int move) {
+            return "" + (char) ('A' + move % BOARD_SIZE) + (move / BOARD_SIZE + 1);
+        }
+
+        private static int parseMove(String text) {
+            int col = Character.toUpperCase(text.charAt(0)) - 'A';
+            int row = Integer.parseInt(text.substring(1)) - 1;
+            if (row < 0 || row >= BOARD_SIZE || col < 0 || col >= BOARD_SIZE) {
+                throw new IllegalArgumentException("move off the board: " + text);
+            }
+            return row * BOARD_SIZE + col;
+        }
+    }
+}
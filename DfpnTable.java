@@ -0,0 +1,170 @@
+import java.io.*;
+import java.nio.file.*;
+
+// hash table for the proof-number solver, 16 bytes per position and a fixed memory budget
+// each entry packs proof number, disproof number, best move and a rough work size into one long,
+// the stored key is xored with that long so a half written entry from another thread reads as a miss
+public class DfpnTable {
+    static final int INF = (1 << 26) - 1;
+    static final int NO_MOVE = 255;
+
+    private static final int BUCKET = 4;
+    private static final int ENTRY_BYTES = 16;
+    private static final int MAX_WORK = 15;
+    private static final int SOLVED_BONUS = 3;
+
+    private static final int MAGIC = 0x4446504E; // "DFPN"
+    private static final int VERSION = 1;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    public DfpnTable(long budgetBytes) {
+        long entries = Long.highestOneBit(Math.max(BUCKET, budgetBytes / ENTRY_BYTES));
+        entries = Math.min(entries, 1L << 30);
+        keys = new long[(int) entries];
+        data = new long[(int) entries];
+        mask = (int) entries - 1;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    // packed entry for the key, 0 when it isn't stored (a real entry never has pn and dn both 0)
+    public long probe(long key) {
+        int start = index(key);
+        for (int i = 0; i < BUCKET; i++) {
+            long d = data[start + i];
+            if ((keys[start + i] ^ d) == key && d != 0) return d;
+        }
+        return 0;
+    }
+
+    // the entry that took the least work to find goes, solved entries count a bit more
+    public void store(long key, int pn, int dn, int move, long work) {
+        int workLog = 64 - Long.numberOfLeadingZeros(work) + (pn == 0 || dn == 0 ? SOLVED_BONUS : 0);
+        workLog = Math.min(MAX_WORK, workLog);
+        long d = pack(pn, dn, move, workLog);
+        int start = index(key);
+        int victim = start;
+        int victimWork = Integer.MAX_VALUE;
+        for (int i = 0; i < BUCKET; i++) {
+            long old = data[start + i];
+            if (old == 0 || (keys[start + i] ^ old) == key) {
+                victim = start + i;
+                break;
+            }
+            if (work(old) < victimWork) {
+                victimWork = work(old);
+                victim = start + i;
+            }
+        }
+        data[victim] = d;
+        keys[victim] = key ^ d;
+    }
+
+    // put a saved entry back as it was
+    private void restore(long key, long d) {
+        int start = index(key);
+        int victim = start;
+        int victimWork = Integer.MAX_VALUE;
+        for (int i = 0; i < BUCKET; i++) {
+            long old = data[start + i];
+            if (old == 0) {
+                victim = start + i;
+                break;
+            }
+            if (work(old) < victimWork) {
+                victimWork = work(old);
+                victim = start + i;
+            }
+        }
+        if (victimWork != Integer.MAX_VALUE && victimWork > work(d)) return;
+        data[victim] = d;
+        keys[victim] = key ^ d;
+    }
+
+    // entries in use, counted from a sample so it stays cheap on big tables
+    public double fill() {
+        int sample = Math.min(keys.length, 1 << 16);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            if (data[i] != 0) used++;
+        }
+        return (double) used / sample;
+    }
+
+    static int pn(long d) {
+        return (int) (d & INF);
+    }
+
+    static int dn(long d) {
+        return (int) ((d >>> 26) & INF);
+    }
+
+    static int move(long d) {
+        return (int) ((d >>> 52) & 0xFF);
+    }
+
+    private static int work(long d) {
+        return (int) (d >>> 60);
+    }
+
+    private static long pack(int pn, int dn, int move, int workLog) {
+        return (pn & (long) INF) | ((dn & (long) INF) << 26) | ((long) (move & 0xFF) << 52) | ((long) workLog << 60);
+    }
+
+    private int index(long key) {
+        return (int) (key ^ (key >>> 32)) & mask & ~(BUCKET - 1);
+    }
+
+    // only used entries are written, so a checkpoint can be loaded into a table of any size
+    // safe while solver threads are still writing, a torn entry just fails its key check later,
+    // one save at a time and each into its own temp file so two savers can't mix their output
+    public synchronized void save(File file, long rootKey) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        Path temp = Files.createTempFile(dir.toPath(), file.getName() + ".", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(rootKey);
+                for (int i = 0; i < keys.length; i++) {
+                    long d = data[i];
+                    if (d == 0) continue;
+                    out.writeLong(keys[i] ^ d);
+                    out.writeLong(d);
+                }
+            }
+            // replace the old checkpoint only once the new one is complete, in one step so there's always one on disk
+            Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // returns how many entries were read
+    public long load(File file, long rootKey) throws IOException {
+        long count = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("not a solver checkpoint: " + file);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("unsupported checkpoint version " + version);
+            if (in.readLong() != rootKey) throw new IOException("checkpoint " + file + " is for a different position");
+            while (true) {
+                long key;
+                try {
+                    key = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                long d = in.readLong();
+                restore(key, d);
+                count++;
+            }
+        }
+        return count;
+    }
+}
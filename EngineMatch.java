@@ -0,0 +1,60 @@
+// plays alpha-beta against MCTS at the same time budget and prints the score
+// usage: java EngineMatch [games] [millisPerMove]
+public class EngineMatch {
+    private static final int BOARD_SIZE = 15;
+    private static final int EMPTY = 0;
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+
+        GomokuEngine alphaBeta = new GomokuBot();
+        GomokuEngine mcts = new GomokuMctsBot();
+        alphaBeta.setTimeBudget(millis);
+        mcts.setTimeBudget(millis);
+
+        int alphaBetaWins = 0, mctsWins = 0, draws = 0;
+        for (int game = 0; game < games; game++) {
+            // swap colors every game
+            boolean alphaBetaBlack = game % 2 == 0;
+            GomokuEngine black = alphaBetaBlack ? alphaBeta : mcts;
+            GomokuEngine white = alphaBetaBlack ? mcts : alphaBeta;
+
+            int winner = playGame(black, white);
+            String result;
+            if (winner == EMPTY) {
+                draws++;
+                result = "draw";
+            } else if ((winner == 1) == alphaBetaBlack) {
+                alphaBetaWins++;
+                result = "alpha-beta wins";
+            } else {
+                mctsWins++;
+                result = "mcts wins";
+            }
+            System.out.println("game " + (game + 1) + " (alpha-beta " + (alphaBetaBlack ? "black" : "white") + "): " + result);
+        }
+
+        System.out.println("alpha-beta " + alphaBetaWins + " - mcts " + mctsWins + " - draws " + draws
+                + " at " + millis + "ms per move");
+        alphaBeta.close();
+        mcts.close();
+    }
+
+    // returns 1 if black wins, 2 if white wins, 0 for a full board
+    private static int playGame(GomokuEngine black, GomokuEngine white) {
+        int[][] board = new int[BOARD_SIZE][BOARD_SIZE];
+        int player = 1;
+        for (int ply = 0; ply < BOARD_SIZE * BOARD_SIZE; ply++) {
+            int[] move = (player == 2 ? white : black).findBestMove(GomokuBot.boardForEngine(board, player));
+            if (move == null || board[move[0]][move[1]] != EMPTY) {
+                // illegal move loses
+                return player == 1 ? 2 : 1;
+            }
+            board[move[0]][move[1]] = player;
+            if (GomokuBot.checkWinAt(board, move[0], move[1], player)) return player;
+            player = player == 1 ? 2 : 1;
+        }
+        return EMPTY;
+    }
+}
@@ -0,0 +1,363 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+// shares a few cores between many alpha-beta searches, for running lots of bot games in one JVM
+// every tenant (a game or a difficulty tier) gets a node and cpu quota per move, searches give up
+// their core at checkpoints so the request closest to its deadline runs first, and a move always
+// comes back before its deadline, even if it has to be a quick one because nothing was free
+// usage: java EngineScheduler [games] [seconds] [cores] [move ms]   load test with easy/normal/hard tiers
+public class EngineScheduler {
+    private static final int BOARD_SIZE = 15;
+
+    // how long a search keeps a core before checking if someone more urgent is waiting
+    private static final long SLICE_NANOS = 5000000L;
+
+    // kept free before the deadline to unwind the search and hand the move back
+    private static final long DEADLINE_MARGIN_MILLIS = 40;
+
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService watchdog;
+    private final ThreadLocal<GomokuBot> workerBots = ThreadLocal.withInitial(GomokuBot::new);
+    private final GomokuBot watchdogBot = new GomokuBot();
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    // core handoff, everything below is guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Request> waiting = new PriorityQueue<>();
+    private int freeCores;
+
+    public EngineScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // more threads than cores, so a search parked mid-move doesn't keep new requests from starting
+    public EngineScheduler(int cores) {
+        this.freeCores = Math.max(1, cores);
+        int threads = freeCores * 4;
+        // started requests are taken earliest deadline first too
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), daemonThreads("engine-scheduler"));
+        watchdog = Executors.newSingleThreadScheduledExecutor(daemonThreads("engine-scheduler-watchdog"));
+        watchdogBot.setNodeLimit(1);
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // quotas per move, 0 means no limit for that one
+    public void addTenant(String name, long nodesPerMove, long cpuMillisPerMove) {
+        tenants.put(name, new Tenant(name, nodesPerMove, cpuMillisPerMove));
+    }
+
+    public void removeTenant(String name) {
+        tenants.remove(name);
+    }
+
+    // search for white on the given board, the move arrives before deadlineMillis (System.currentTimeMillis time)
+    public CompletableFuture<int[]> submit(String tenantName, int[][] board, long deadlineMillis) {
+        Tenant tenant = tenants.get(tenantName);
+        if (tenant == null) throw new IllegalArgumentException("unknown tenant: " + tenantName);
+
+        Request request = new Request(tenant, board, deadlineMillis);
+        long untilExpiry = deadlineMillis - DEADLINE_MARGIN_MILLIS - System.currentTimeMillis();
+        request.expiry = watchdog.schedule(request::expire, Math.max(0, untilExpiry), TimeUnit.MILLISECONDS);
+        workers.execute(request);
+        return request.result;
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    // one line per tenant with everything it used so far
+    public String report() {
+        List<Tenant> sorted = new ArrayList<>(tenants.values());
+        sorted.sort(Comparator.comparing(t -> t.name));
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-12s %7s %12s %9s %9s %9s %7s %8s %8s %6s %9s%n", "tenant", "moves", "nodes",
+                "cpu ms", "cpu/move", "wait/mv", "quota", "timeout", "fallbck", "late", "min slack"));
+        for (Tenant t : sorted) {
+            synchronized (t) {
+                long perMove = Math.max(1, t.moves);
+                sb.append(String.format("%-12s %7d %12d %9d %9d %9d %7d %8d %8d %6d %9s%n", t.name, t.moves, t.nodes,
+                        t.cpuNanos / 1000000, t.cpuNanos / perMove / 1000000, t.waitNanos / perMove / 1000000,
+                        t.quotaStops, t.timeouts, t.fallbacks, t.late,
+                        t.moves == 0 ? "-" : t.minSlackMillis + "ms"));
+            }
+        }
+        return sb.toString();
+    }
+
+    // give the core to the most urgent waiting search, or put it back in the pool
+    private void handOff() {
+        Request next = waiting.poll();
+        if (next == null) {
+            freeCores++;
+        } else {
+            next.hasCore = true;
+            next.granted.signal();
+        }
+    }
+
+    // quota and usage for one game or difficulty tier
+    private static class Tenant {
+        final String name;
+        final long nodesPerMove;
+        final long cpuNanosPerMove;
+
+        long moves, nodes, cpuNanos, waitNanos;
+        long quotaStops, timeouts, fallbacks, late;
+        long minSlackMillis = Long.MAX_VALUE;
+
+        Tenant(String name, long nodesPerMove, long cpuMillisPerMove) {
+            this.name = name;
+            this.nodesPerMove = nodesPerMove;
+            this.cpuNanosPerMove = cpuMillisPerMove * 1000000;
+        }
+
+        synchronized void record(Request r, long slackMillis) {
+            moves++;
+            nodes += r.nodes;
+            cpuNanos += r.cpuNanos;
+            waitNanos += r.waitNanos;
+            if (r.quotaStop) quotaStops++;
+            if (r.timedOut) timeouts++;
+            if (r.fallback) fallbacks++;
+            if (slackMillis < 0) late++;
+            minSlackMillis = Math.min(minSlackMillis, slackMillis);
+        }
+    }
+
+    // one move to search, runs on a worker thread and is its own search checkpoint
+    private class Request implements Runnable, Comparable<Request>, SearchCheckpoint {
+        final Tenant tenant;
+        final int[][] board;
+        final long deadlineMillis;
+        final long order = sequence.getAndIncrement();
+        final long submitted = System.nanoTime();
+        final CompletableFuture<int[]> result = new CompletableFuture<>();
+        final AtomicBoolean claimed = new AtomicBoolean();
+        final Condition granted = lock.newCondition();
+        ScheduledFuture<?> expiry;
+
+        // guarded by lock
+        boolean hasCore;
+
+        // only touched by the thread running the search
+        long sliceStart;
+        long cpuNanos, waitNanos, nodes;
+        boolean quotaStop, timedOut, fallback;
+
+        Request(Tenant tenant, int[][] board, long deadlineMillis) {
+            this.tenant = tenant;
+            this.board = board;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        // earliest deadline first, then first come first served
+        public int compareTo(Request other) {
+            if (deadlineMillis != other.deadlineMillis) return Long.compare(deadlineMillis, other.deadlineMillis);
+            return Long.compare(order, other.order);
+        }
+
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) return;
+            waitNanos = System.nanoTime() - submitted;
+
+            GomokuBot bot = workerBots.get();
+            if (!acquireCore()) {
+                // the deadline came while waiting for a core
+                finish(quickMove(bot));
+                return;
+            }
+            int[] move;
+            try {
+                bot.setTimeBudget(Math.max(1, deadlineMillis - DEADLINE_MARGIN_MILLIS - System.currentTimeMillis()));
+                bot.setNodeLimit(tenant.nodesPerMove);
+                bot.setCheckpoint(this);
+                move = bot.findBestMove(board);
+                nodes = bot.getNodeCount();
+            } finally {
+                bot.setCheckpoint(null);
+                releaseCore();
+            }
+            finish(move);
+        }
+
+        // watchdog: never got a worker thread in time, answer right away
+        void expire() {
+            if (!claimed.compareAndSet(false, true)) return;
+            waitNanos = System.nanoTime() - submitted;
+            finish(quickMove(watchdogBot));
+        }
+
+        // forced moves and the best looking candidate without any search
+        private int[] quickMove(GomokuBot bot) {
+            fallback = true;
+            bot.setCheckpoint(null);
+            bot.setTimeBudget(0);
+            bot.setNodeLimit(1);
+            return bot.findBestMove(board);
+        }
+
+        private void finish(int[] move) {
+            expiry.cancel(false);
+            tenant.record(this, deadlineMillis - System.currentTimeMillis());
+            result.complete(move);
+        }
+
+        public boolean proceed(long nodes) {
+            long now = System.nanoTime();
+            if (tenant.cpuNanosPerMove > 0 && cpuNanos + (now - sliceStart) >= tenant.cpuNanosPerMove) {
+                quotaStop = true;
+                return false;
+            }
+            if (now - sliceStart < SLICE_NANOS) return true;
+
+            // slice is used up, step aside if a more urgent search is waiting
+            lock.lock();
+            try {
+                cpuNanos += now - sliceStart;
+                sliceStart = now;
+                Request next = waiting.peek();
+                if (next == null || next.compareTo(this) > 0) return true;
+                hasCore = false;
+                handOff();
+                waiting.add(this);
+                return awaitCore();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean acquireCore() {
+            lock.lock();
+            try {
+                Request next = waiting.peek();
+                if (freeCores > 0 && (next == null || next.compareTo(this) > 0)) {
+                    freeCores--;
+                    hasCore = true;
+                    sliceStart = System.nanoTime();
+                    return true;
+                }
+                waiting.add(this);
+                return awaitCore();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // lock held, false if the deadline came first
+        private boolean awaitCore() {
+            long start = System.nanoTime();
+            try {
+                while (!hasCore) {
+                    long remaining = deadlineMillis - DEADLINE_MARGIN_MILLIS - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        waiting.remove(this);
+                        timedOut = true;
+                        return false;
+                    }
+                    granted.await(remaining, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                waiting.remove(this);
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                waitNanos += System.nanoTime() - start;
+            }
+            sliceStart = System.nanoTime();
+            return true;
+        }
+
+        private void releaseCore() {
+            lock.lock();
+            try {
+                if (hasCore) {
+                    cpuNanos += System.nanoTime() - sliceStart;
+                    hasCore = false;
+                    handOff();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // many bot-vs-bot games at once on three tiers, prints per tier usage at the end
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 24;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int cores = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long moveMillis = args.length > 3 ? Long.parseLong(args[3]) : 1000;
+
+        EngineScheduler scheduler = new EngineScheduler(cores);
+        String[] tiers = {"easy", "normal", "hard"};
+        scheduler.addTenant("easy", 2000, 5);
+        scheduler.addTenant("normal", 20000, 50);
+        scheduler.addTenant("hard", 0, 0);
+
+        long end = System.currentTimeMillis() + seconds * 1000L;
+        AtomicLong finishedGames = new AtomicLong();
+        for (int i = 0; i < games; i++) {
+            new LoadTestGame(scheduler, tiers[i % tiers.length], moveMillis, end, finishedGames).next();
+        }
+        System.out.println(games + " games on " + cores + " cores, " + moveMillis + "ms per move, running for "
+                + seconds + "s...");
+        Thread.sleep(seconds * 1000L + moveMillis);
+
+        System.out.print(scheduler.report());
+        System.out.println(finishedGames.get() + " games finished");
+        scheduler.shutdown();
+    }
+
+    // both sides played by the tier's bot, restarts when a game ends
+    private static class LoadTestGame {
+        final EngineScheduler scheduler;
+        final String tier;
+        final long moveMillis;
+        final long end;
+        final AtomicLong finishedGames;
+        final int[][] board = new int[BOARD_SIZE][BOARD_SIZE];
+        int toMove = 1;
+        int moves;
+
+        LoadTestGame(EngineScheduler scheduler, String tier, long moveMillis, long end, AtomicLong finishedGames) {
+            this.scheduler = scheduler;
+            this.tier = tier;
+            this.moveMillis = moveMillis;
+            this.end = end;
+            this.finishedGames = finishedGames;
+        }
+
+        void next() {
+            if (System.currentTimeMillis() >= end) return;
+            int[][] view = GomokuBot.boardForEngine(board, toMove);
+            scheduler.submit(tier, view, System.currentTimeMillis() + moveMillis).thenAccept(this::played);
+        }
+
+        void played(int[] move) {
+            board[move[0]][move[1]] = toMove;
+            moves++;
+            if (GomokuBot.checkWinAt(board, move[0], move[1], toMove) || moves == BOARD_SIZE * BOARD_SIZE) {
+                finishedGames.incrementAndGet();
+                for (int[] row : board) Arrays.fill(row, 0);
+                moves = 0;
+                toMove = 1;
+            } else {
+                toMove = 3 - toMove;
+            }
+            next();
+        }
+    }
+}
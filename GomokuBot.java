@@ -1,6 +1,6 @@
 import java.util.*;
 
-public class GomokuBot {
+public class GomokuBot implements GomokuEngine {
     private static final int BOARD_SIZE = 15;
     private static final int SEARCH_DEPTH = 6;
     private static final int BOT = 2;
@@ -18,42 +18,179 @@ public class GomokuBot {
     private static final int TWO_SCORE = 100;
     private static final int ONE_SCORE = 10;
     
-    // threat levels for blocking
-    private static final int THREAT_FIVE = 5;
-    private static final int THREAT_OPEN_FOUR = 4;
-    private static final int THREAT_FOUR = 3;
-    private static final int THREAT_OPEN_THREE = 2;
-    private static final int THREAT_THREE = 1;
+    // threat levels for blocking (also used by the proof-number solver)
+    static final int THREAT_FIVE = 5;
+    static final int THREAT_OPEN_FOUR = 4;
+    static final int THREAT_FOUR = 3;
+    static final int THREAT_OPEN_THREE = 2;
+    static final int THREAT_THREE = 1;
     
-    private int[][] gameBoard;
+    // line directions as row/col steps, shared so scans don't allocate (the server and solver use them too)
+    static final int[] DIR_ROW = {0, 1, 1, 1};
+    static final int[] DIR_COL = {1, 0, 1, -1};
+    
+    // search limits and preallocated buffers
+    private static final int CELLS = BOARD_SIZE * BOARD_SIZE;
+    private static final int ROOT_WIDTH = 12;
+    private static final int NODE_WIDTH = 10;
+    private static final int CACHE_SIZE = 1 << 16;
+    private static final long PUBLISH_INTERVAL_MS = 50;
+    private static final long WARMUP_MILLIS = 150;
+    private static final int WARMUP_POSITIONS = 3;
+    
+    // random keys for hashing positions (zobrist), one per cell and color
+    private static final long[][] ZOBRIST = new long[3][CELLS];
+    static {
+        Random keys = new Random(20240601L);
+        for (int player = 1; player <= 2; player++) {
+            for (int i = 0; i < CELLS; i++) {
+                ZOBRIST[player][i] = keys.nextLong();
+            }
+        }
+    }
+    
+    private int[][] gameBoard = new int[BOARD_SIZE][BOARD_SIZE];
     private Random rng;
-    private HashMap<String, Integer> boardCache;
+    
+    // position cache keyed by zobrist hash, zero key means empty slot
+    private long[] cacheKeys = new long[CACHE_SIZE];
+    private int[] cacheValues = new int[CACHE_SIZE];
+    private long boardHash;
+    
+    // candidate moves per ply: cell index (row * BOARD_SIZE + col) and score
+    private int[][] moveStack = new int[SEARCH_DEPTH + 1][CELLS];
+    private int[][] scoreStack = new int[SEARCH_DEPTH + 1][CELLS];
+    private int[] seenStamp = new int[CELLS];
+    private int stamp;
+    private int rootCandidateCount;
+    
+    // principal variation per depth, pv[d] is the best line found below a node at depth d
+    private int[][] pvTable = new int[SEARCH_DEPTH + 1][SEARCH_DEPTH + 1];
+    private int[] pvLength = new int[SEARCH_DEPTH + 1];
+    
+    // optional time limit (0 means search to full depth)
+    private long timeBudgetMillis = 0;
+    private long deadline;
+    private boolean searchAborted;
+    private volatile boolean stopRequested;
+    private long nodeCounter;
+    private long nodeLimit = Long.MAX_VALUE;
+    
+    // optional live analysis output
+    private volatile AnalysisListener analysisListener;
+    private long lastPublishTime;
+    
+    // optional hook for a scheduler sharing cores between searches
+    private SearchCheckpoint checkpoint;
+    
+    // optional neural evaluator (null means use the pattern evaluation)
+    private NnueEvaluator nnue;
     
     public GomokuBot() {
         this.rng = new Random();
-        this.boardCache = new HashMap<>();
+    }
+    
+    // limit thinking time per move, used to compare engines fairly
+    public void setTimeBudget(long millis) {
+        this.timeBudgetMillis = millis;
+    }
+    
+    // limit searched nodes per move, 0 means no limit
+    public void setNodeLimit(long nodes) {
+        this.nodeLimit = nodes > 0 ? nodes : Long.MAX_VALUE;
+    }
+    
+    public void setAnalysisListener(AnalysisListener listener) {
+        this.analysisListener = listener;
+    }
+    
+    // called every 256 nodes along with the clock check (null to turn off)
+    public void setCheckpoint(SearchCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+    
+    // nodes searched by the last findBestMove
+    public long getNodeCount() {
+        return nodeCounter;
+    }
+    
+    // checked with the clock, so the search stops within a few hundred nodes
+    public void stopSearch() {
+        stopRequested = true;
+    }
+
+    // nothing to free, the search runs on the caller's thread
+    public void close() {
+    }
+    
+    public void warmUp() {
+        long savedBudget = timeBudgetMillis;
+        AnalysisListener savedListener = analysisListener;
+        timeBudgetMillis = WARMUP_MILLIS;
+        analysisListener = null;
+        
+        Random positions = new Random(7);
+        for (int i = 0; i < WARMUP_POSITIONS; i++) {
+            findBestMove(syntheticPosition(positions, 12));
+        }
+        
+        // forget the made-up positions
+        timeBudgetMillis = savedBudget;
+        analysisListener = savedListener;
+        Arrays.fill(cacheKeys, 0L);
+    }
+    
+    // random middle game position near the center with no five on it
+    static int[][] syntheticPosition(Random positions, int stones) {
+        int[][] board = new int[BOARD_SIZE][BOARD_SIZE];
+        int center = BOARD_SIZE / 2;
+        int player = HUMAN;
+        int placed = 0;
+        while (placed < stones) {
+            int row = center - 4 + positions.nextInt(9);
+            int col = center - 4 + positions.nextInt(9);
+            if (board[row][col] != EMPTY) continue;
+            board[row][col] = player;
+            if (checkWinAt(board, row, col, player)) {
+                board[row][col] = EMPTY;
+                continue;
+            }
+            player = player == HUMAN ? BOT : HUMAN;
+            placed++;
+        }
+        return board;
+    }
+    
+    // switch to the neural evaluator, or back to patterns with null
+    public void setEvaluator(NnueEvaluator evaluator) {
+        this.nnue = evaluator;
+        Arrays.fill(cacheKeys, 0L);
     }
     
     // main method to find best move
     public int[] findBestMove(int[][] currentBoard) {
-        this.gameBoard = makeBoardCopy(currentBoard);
-        
-        // clear cache if getting too big
-        if (boardCache.size() > 10000) {
-            boardCache.clear();
+        copyBoard(currentBoard);
+        this.boardHash = computeHash();
+        if (nnue != null) {
+            nnue.reset(gameBoard);
         }
+        this.deadline = timeBudgetMillis > 0 ? System.currentTimeMillis() + timeBudgetMillis : Long.MAX_VALUE;
+        this.searchAborted = false;
+        this.stopRequested = false;
+        this.nodeCounter = 0;
+        this.lastPublishTime = 0;
         
         // check if we can win immediately
         int[] winMove = findInstantWin(BOT);
-        if (winMove != null) return winMove;
+        if (winMove != null) return publishForcedMove(winMove, "winning move");
         
         // check if we need to block opponent win
         int[] blockMove = findInstantWin(HUMAN);
-        if (blockMove != null) return blockMove;
+        if (blockMove != null) return publishForcedMove(blockMove, "must block five");
         
         // look for critical threats to handle
         int[] threatMove = handleCriticalThreats();
-        if (threatMove != null) return threatMove;
+        if (threatMove != null) return publishForcedMove(threatMove, "must block four");
         
         // use minimax to find best move
         return useMinimaxSearch();
@@ -61,64 +198,99 @@ public class GomokuBot {
     
     // minimax with iterative deepening
     private int[] useMinimaxSearch() {
-        ArrayList<MoveWithScore> possibleMoves = getPossibleMoves();
-        if (possibleMoves.isEmpty()) {
+        int moveCount = getPossibleMoves(0, ROOT_WIDTH);
+        if (moveCount == 0) {
             return getBackupMove();
         }
+        int[] rootMoves = moveStack[0];
         
-        MoveWithScore bestSoFar = null;
+        int bestSoFar = -1;
+        int[] bestLine = new int[SEARCH_DEPTH];
+        int bestLineLength = 0;
+        int[] line = new int[SEARCH_DEPTH];
+        int lineLength = 0;
+        publishAnalysis(0, -1, 0, line, 0);
         
         // try different depths
         for (int depth = 2; depth <= SEARCH_DEPTH; depth++) {
             int bestValue = Integer.MIN_VALUE;
-            MoveWithScore currentBest = null;
+            int currentBest = -1;
             
             // only check top moves to save time
-            for (int i = 0; i < Math.min(12, possibleMoves.size()); i++) {
-                MoveWithScore move = possibleMoves.get(i);
-                int row = move.row;
-                int col = move.col;
+            for (int i = 0; i < moveCount; i++) {
+                int row = rootMoves[i] / BOARD_SIZE;
+                int col = rootMoves[i] % BOARD_SIZE;
                 
-                gameBoard[row][col] = BOT;
+                makeMove(row, col, BOT);
                 int value = minimax(depth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
-                gameBoard[row][col] = EMPTY;
+                undoMove(row, col, BOT);
+                
+                // ran out of time, this depth is incomplete
+                if (searchAborted) break;
                 
                 if (value > bestValue) {
                     bestValue = value;
-                    currentBest = move;
+                    currentBest = rootMoves[i];
+                    line[0] = currentBest;
+                    System.arraycopy(pvTable[depth - 1], 0, line, 1, pvLength[depth - 1]);
+                    lineLength = pvLength[depth - 1] + 1;
                 }
                 
                 // if we found a winning move, take it
                 if (value >= INSTANT_WIN / 2) break;
+                
+                // stream partial results for this depth now and then
+                if (analysisListener != null && System.currentTimeMillis() - lastPublishTime >= PUBLISH_INTERVAL_MS) {
+                    publishAnalysis(depth, currentBest, bestValue, line, lineLength);
+                }
             }
             
-            if (currentBest != null) {
+            if (searchAborted) break;
+            
+            if (currentBest >= 0) {
                 bestSoFar = currentBest;
+                System.arraycopy(line, 0, bestLine, 0, lineLength);
+                bestLineLength = lineLength;
+                publishAnalysis(depth, currentBest, bestValue, bestLine, bestLineLength);
             }
         }
         
-        return bestSoFar != null ? new int[]{bestSoFar.row, bestSoFar.col} : possibleMoves.get(0).getMove();
+        int move = bestSoFar >= 0 ? bestSoFar : rootMoves[0];
+        return new int[]{move / BOARD_SIZE, move % BOARD_SIZE};
     }
     
     // recursive minimax with alpha-beta pruning
+    // depth doubles as the index into the move stacks, it is unique along the path
     private int minimax(int depth, int alpha, int beta, boolean maximizing) {
+        pvLength[depth] = 0;
+        
+        // count every node, check the clock every so often
+        if (++nodeCounter >= nodeLimit
+                || ((nodeCounter & 255) == 0 && (stopRequested || System.currentTimeMillis() > deadline
+                        || (checkpoint != null && !checkpoint.proceed(nodeCounter))))) {
+            searchAborted = true;
+        }
+        if (searchAborted) return 0;
+        
         // base case - evaluate position
         if (depth == 0) {
             return evaluateBoard();
         }
         
         // check if we've seen this position before
-        String boardKey = getBoardAsString();
-        if (boardCache.containsKey(boardKey)) {
-            return boardCache.get(boardKey);
+        long key = boardHash;
+        int slot = (int) key & (CACHE_SIZE - 1);
+        if (cacheKeys[slot] == key) {
+            return cacheValues[slot];
         }
         
-        ArrayList<MoveWithScore> moves = getPossibleMoves();
-        if (moves.isEmpty()) {
+        int moveCount = getPossibleMoves(depth, NODE_WIDTH);
+        if (moveCount == 0) {
             int score = evaluateBoard();
-            boardCache.put(boardKey, score);
+            storeCache(key, score);
             return score;
         }
+        int[] moves = moveStack[depth];
         
         int bestValue;
         
@@ -126,19 +298,23 @@ public class GomokuBot {
             bestValue = Integer.MIN_VALUE;
             
             // try top moves only
-            for (MoveWithScore move : moves.subList(0, Math.min(10, moves.size()))) {
-                gameBoard[move.row][move.col] = BOT;
+            for (int i = 0; i < moveCount; i++) {
+                int row = moves[i] / BOARD_SIZE, col = moves[i] % BOARD_SIZE;
+                makeMove(row, col, BOT);
                 
                 // check for immediate win
-                if (checkWinAt(move.row, move.col, BOT)) {
-                    gameBoard[move.row][move.col] = EMPTY;
-                    boardCache.put(boardKey, INSTANT_WIN);
+                if (checkWinAt(gameBoard, row, col, BOT)) {
+                    undoMove(row, col, BOT);
+                    pvTable[depth][0] = moves[i];
+                    pvLength[depth] = 1;
+                    storeCache(key, INSTANT_WIN);
                     return INSTANT_WIN;
                 }
                 
                 int value = minimax(depth - 1, alpha, beta, false);
-                gameBoard[move.row][move.col] = EMPTY;
+                undoMove(row, col, BOT);
                 
+                if (value > bestValue) updatePv(depth, moves[i]);
                 bestValue = Math.max(bestValue, value);
                 alpha = Math.max(alpha, value);
                 
@@ -148,19 +324,23 @@ public class GomokuBot {
         } else {
             bestValue = Integer.MAX_VALUE;
             
-            for (MoveWithScore move : moves.subList(0, Math.min(10, moves.size()))) {
-                gameBoard[move.row][move.col] = HUMAN;
+            for (int i = 0; i < moveCount; i++) {
+                int row = moves[i] / BOARD_SIZE, col = moves[i] % BOARD_SIZE;
+                makeMove(row, col, HUMAN);
                 
                 // check for immediate loss
-                if (checkWinAt(move.row, move.col, HUMAN)) {
-                    gameBoard[move.row][move.col] = EMPTY;
-                    boardCache.put(boardKey, -INSTANT_WIN);
+                if (checkWinAt(gameBoard, row, col, HUMAN)) {
+                    undoMove(row, col, HUMAN);
+                    pvTable[depth][0] = moves[i];
+                    pvLength[depth] = 1;
+                    storeCache(key, -INSTANT_WIN);
                     return -INSTANT_WIN;
                 }
                 
                 int value = minimax(depth - 1, alpha, beta, true);
-                gameBoard[move.row][move.col] = EMPTY;
+                undoMove(row, col, HUMAN);
                 
+                if (value < bestValue) updatePv(depth, moves[i]);
                 bestValue = Math.min(bestValue, value);
                 beta = Math.min(beta, value);
                 
@@ -168,13 +348,71 @@ public class GomokuBot {
             }
         }
         
-        boardCache.put(boardKey, bestValue);
+        if (!searchAborted) {
+            storeCache(key, bestValue);
+        }
         return bestValue;
     }
     
-    // generate moves near existing stones
-    private ArrayList<MoveWithScore> getPossibleMoves() {
-        HashMap<String, MoveWithScore> candidateSet = new HashMap<>();
+    // best line at this depth is the move followed by the child's best line
+    private void updatePv(int depth, int move) {
+        pvTable[depth][0] = move;
+        System.arraycopy(pvTable[depth - 1], 0, pvTable[depth], 1, pvLength[depth - 1]);
+        pvLength[depth] = pvLength[depth - 1] + 1;
+    }
+    
+    // send a snapshot to the analysis listener (copies, the search keeps going)
+    private void publishAnalysis(int depth, int bestMove, int score, int[] line, int lineLength) {
+        AnalysisListener listener = analysisListener;
+        if (listener == null) return;
+        lastPublishTime = System.currentTimeMillis();
+        
+        int[] moves = Arrays.copyOf(moveStack[0], rootCandidateCount);
+        int[] scores = Arrays.copyOf(scoreStack[0], rootCandidateCount);
+        String summary = depth == 0 ? "scoring candidates" : "depth " + depth + ", score " + score;
+        listener.analysisUpdated(new AnalysisInfo(depth, bestMove, score, Arrays.copyOf(line, lineLength), moves, scores, nodeCounter, summary));
+    }
+    
+    // report a move found by the quick checks before the search
+    private int[] publishForcedMove(int[] move, String reason) {
+        AnalysisListener listener = analysisListener;
+        if (listener != null) {
+            int cell = move[0] * BOARD_SIZE + move[1];
+            listener.analysisUpdated(new AnalysisInfo(0, cell, 0, new int[]{cell}, new int[]{cell}, new int[]{1}, nodeCounter, reason));
+        }
+        return move;
+    }
+    
+    // remember a score for a position, newer entries replace older ones
+    private void storeCache(long key, int value) {
+        int slot = (int) key & (CACHE_SIZE - 1);
+        cacheKeys[slot] = key;
+        cacheValues[slot] = value;
+    }
+    
+    // place a stone during search, keeps the neural accumulator in sync
+    private void makeMove(int row, int col, int player) {
+        gameBoard[row][col] = player;
+        boardHash ^= ZOBRIST[player][row * BOARD_SIZE + col];
+        if (nnue != null) nnue.addStone(row, col, player);
+    }
+    
+    // take back a stone placed by makeMove
+    private void undoMove(int row, int col, int player) {
+        gameBoard[row][col] = EMPTY;
+        boardHash ^= ZOBRIST[player][row * BOARD_SIZE + col];
+        if (nnue != null) nnue.removeStone(row, col, player);
+    }
+    
+    // generate moves near existing stones into moveStack[ply]
+    // keeps the best `limit` moves sorted by score and returns how many there are
+    private int getPossibleMoves(int ply, int limit) {
+        int[] moves = moveStack[ply];
+        int[] scores = scoreStack[ply];
+        int count = 0;
+        
+        // new stamp marks every cell as not seen yet
+        stamp++;
         
         // look around existing stones
         for (int row = 0; row < BOARD_SIZE; row++) {
@@ -187,10 +425,12 @@ public class GomokuBot {
                             int newCol = col + deltaCol;
                             
                             if (isValidSpot(newRow, newCol) && gameBoard[newRow][newCol] == EMPTY) {
-                                String key = newRow + "," + newCol;
-                                if (!candidateSet.containsKey(key)) {
-                                    int score = scoreMoveAt(newRow, newCol);
-                                    candidateSet.put(key, new MoveWithScore(newRow, newCol, score));
+                                int cell = newRow * BOARD_SIZE + newCol;
+                                if (seenStamp[cell] != stamp) {
+                                    seenStamp[cell] = stamp;
+                                    moves[count] = cell;
+                                    scores[count] = scoreMoveAt(newRow, newCol);
+                                    count++;
                                 }
                             }
                         }
@@ -200,44 +440,69 @@ public class GomokuBot {
         }
         
         // if no moves found, play center
-        if (candidateSet.isEmpty()) {
+        if (count == 0) {
             int center = BOARD_SIZE / 2;
-            candidateSet.put(center + "," + center, new MoveWithScore(center, center, 100));
+            moves[0] = center * BOARD_SIZE + center;
+            scores[0] = 100;
+            count = 1;
         }
         
-        ArrayList<MoveWithScore> candidates = new ArrayList<>(candidateSet.values());
+        if (ply == 0) {
+            rootCandidateCount = count;
+        }
         
-        // sort by score descending
-        candidates.sort((a, b) -> Integer.compare(b.score, a.score));
+        // selection sort just the top moves, the rest are never searched
+        int top = Math.min(limit, count);
+        for (int i = 0; i < top; i++) {
+            int best = i;
+            for (int j = i + 1; j < count; j++) {
+                if (scores[j] > scores[best]) best = j;
+            }
+            int tempMove = moves[i];
+            moves[i] = moves[best];
+            moves[best] = tempMove;
+            int tempScore = scores[i];
+            scores[i] = scores[best];
+            scores[best] = tempScore;
+        }
         
-        return candidates;
+        return top;
     }
     
     // score a potential move
     private int scoreMoveAt(int row, int col) {
-        int botPoints = scorePositionFor(row, col, BOT);
-        int humanPoints = scorePositionFor(row, col, HUMAN);
+        return scoreMoveFor(gameBoard, row, col, BOT);
+    }
+    
+    // score a potential move for either side (shared with other engines)
+    static int scoreMoveFor(int[][] board, int row, int col, int player) {
+        int attackPoints = scorePositionFor(board, row, col, player);
+        int defensePoints = scorePositionFor(board, row, col, player == BOT ? HUMAN : BOT);
         
         // give bonus for defensive moves
         int defenseBonus = 0;
-        if (humanPoints >= OPEN_THREE_SCORE) {
-            defenseBonus = humanPoints / 2;
+        if (defensePoints >= OPEN_THREE_SCORE) {
+            defenseBonus = defensePoints / 2;
         }
         
-        return botPoints + defenseBonus;
+        return attackPoints + defenseBonus;
     }
     
     // evaluate entire board position
     private int evaluateBoard() {
+        if (nnue != null) {
+            return nnue.evaluate();
+        }
+        
         int botTotal = 0;
         int humanTotal = 0;
         
         for (int row = 0; row < BOARD_SIZE; row++) {
             for (int col = 0; col < BOARD_SIZE; col++) {
                 if (gameBoard[row][col] == BOT) {
-                    botTotal += scorePositionFor(row, col, BOT);
+                    botTotal += scorePositionFor(gameBoard, row, col, BOT);
                 } else if (gameBoard[row][col] == HUMAN) {
-                    humanTotal += scorePositionFor(row, col, HUMAN);
+                    humanTotal += scorePositionFor(gameBoard, row, col, HUMAN);
                 }
             }
         }
@@ -250,12 +515,11 @@ public class GomokuBot {
     }
     
     // score a position for a player
-    private int scorePositionFor(int row, int col, int player) {
+    static int scorePositionFor(int[][] board, int row, int col, int player) {
         int totalPoints = 0;
-        int[][] directions = {{0,1}, {1,0}, {1,1}, {1,-1}};
         
-        for (int[] dir : directions) {
-            PatternInfo pattern = analyzeDirection(row, col, dir[0], dir[1], player);
+        for (int dir = 0; dir < 4; dir++) {
+            int pattern = analyzeDirection(board, row, col, DIR_ROW[dir], DIR_COL[dir], player);
             totalPoints += getScoreForPattern(pattern);
         }
         
@@ -263,50 +527,42 @@ public class GomokuBot {
     }
     
     // analyze pattern in one direction
-    private PatternInfo analyzeDirection(int row, int col, int deltaRow, int deltaCol, int player) {
+    // returns the run length and open ends packed as (length << 2) | openSides
+    private static int analyzeDirection(int[][] board, int row, int col, int deltaRow, int deltaCol, int player) {
         int count = 1;
         int openSides = 0;
-        int blockedSides = 0;
         
         // check backward direction
         int r = row - deltaRow, c = col - deltaCol;
-        boolean leftSideOpen = false;
-        while (isValidSpot(r, c) && gameBoard[r][c] == player) {
+        while (isValidSpot(r, c) && board[r][c] == player) {
             count++;
             r -= deltaRow;
             c -= deltaCol;
         }
-        if (isValidSpot(r, c) && gameBoard[r][c] == EMPTY) {
-            leftSideOpen = true;
+        if (isValidSpot(r, c) && board[r][c] == EMPTY) {
             openSides++;
-        } else {
-            blockedSides++;
         }
         
         // check forward direction
         r = row + deltaRow;
         c = col + deltaCol;
-        boolean rightSideOpen = false;
-        while (isValidSpot(r, c) && gameBoard[r][c] == player) {
+        while (isValidSpot(r, c) && board[r][c] == player) {
             count++;
             r += deltaRow;
             c += deltaCol;
         }
-        if (isValidSpot(r, c) && gameBoard[r][c] == EMPTY) {
-            rightSideOpen = true;
+        if (isValidSpot(r, c) && board[r][c] == EMPTY) {
             openSides++;
-        } else {
-            blockedSides++;
         }
         
-        return new PatternInfo(count, openSides, blockedSides, leftSideOpen && rightSideOpen);
+        return (count << 2) | openSides;
     }
     
     // convert pattern to score
-    private int getScoreForPattern(PatternInfo pattern) {
-        int length = pattern.length;
-        int openSides = pattern.openSides;
-        boolean bothSidesOpen = pattern.bothSidesOpen;
+    private static int getScoreForPattern(int pattern) {
+        int length = pattern >> 2;
+        int openSides = pattern & 3;
+        boolean bothSidesOpen = openSides == 2;
         
         if (length >= 5) return FIVE_IN_ROW;
         
@@ -353,7 +609,7 @@ public class GomokuBot {
             for (int col = 0; col < BOARD_SIZE; col++) {
                 if (gameBoard[row][col] == EMPTY) {
                     gameBoard[row][col] = player;
-                    if (checkWinAt(row, col, player)) {
+                    if (checkWinAt(gameBoard, row, col, player)) {
                         gameBoard[row][col] = EMPTY;
                         return new int[]{row, col};
                     }
@@ -366,58 +622,60 @@ public class GomokuBot {
     
     // find critical threats to block
     private int[] handleCriticalThreats() {
-        ArrayList<int[]> urgentMoves = new ArrayList<>();
-        
         for (int row = 0; row < BOARD_SIZE; row++) {
             for (int col = 0; col < BOARD_SIZE; col++) {
                 if (gameBoard[row][col] == EMPTY) {
                     int threatLevel = getThreatLevelAt(row, col, HUMAN);
                     if (threatLevel >= THREAT_OPEN_FOUR) {
-                        urgentMoves.add(new int[]{row, col});
+                        return new int[]{row, col};
                     }
                 }
             }
         }
         
-        return urgentMoves.isEmpty() ? null : urgentMoves.get(0);
+        return null;
     }
     
     // calculate threat level of a move
     private int getThreatLevelAt(int row, int col, int player) {
-        gameBoard[row][col] = player;
+        return threatLevelFor(gameBoard, row, col, player);
+    }
+    
+    // threat level of playing an empty spot, for either side (shared with other engines)
+    static int threatLevelFor(int[][] board, int row, int col, int player) {
+        board[row][col] = player;
         int maxThreat = 0;
         
-        int[][] directions = {{0,1}, {1,0}, {1,1}, {1,-1}};
-        for (int[] dir : directions) {
-            PatternInfo pattern = analyzeDirection(row, col, dir[0], dir[1], player);
+        for (int dir = 0; dir < 4; dir++) {
+            int pattern = analyzeDirection(board, row, col, DIR_ROW[dir], DIR_COL[dir], player);
+            int length = pattern >> 2;
+            int openSides = pattern & 3;
             int threat = 0;
             
-            if (pattern.length >= 5) threat = THREAT_FIVE;
-            else if (pattern.length == 4 && pattern.openSides >= 1) threat = THREAT_OPEN_FOUR;
-            else if (pattern.length == 4) threat = THREAT_FOUR;
-            else if (pattern.length == 3 && pattern.bothSidesOpen) threat = THREAT_OPEN_THREE;
-            else if (pattern.length == 3 && pattern.openSides >= 1) threat = THREAT_THREE;
+            if (length >= 5) threat = THREAT_FIVE;
+            else if (length == 4 && openSides >= 1) threat = THREAT_OPEN_FOUR;
+            else if (length == 4) threat = THREAT_FOUR;
+            else if (length == 3 && openSides == 2) threat = THREAT_OPEN_THREE;
+            else if (length == 3 && openSides >= 1) threat = THREAT_THREE;
             
             maxThreat = Math.max(maxThreat, threat);
         }
         
-        gameBoard[row][col] = EMPTY;
+        board[row][col] = EMPTY;
         return maxThreat;
     }
     
     // check if move wins the game
-    private boolean checkWinAt(int row, int col, int player) {
-        int[][] directions = {{0,1},{1,0},{1,1},{1,-1}};
-        
-        for (int[] dir : directions) {
+    static boolean checkWinAt(int[][] board, int row, int col, int player) {
+        for (int dir = 0; dir < 4; dir++) {
             int count = 1;
             for (int d = -1; d <= 1; d += 2) {
-                int r = row + d * dir[0];
-                int c = col + d * dir[1];
-                while (isValidSpot(r, c) && gameBoard[r][c] == player) {
+                int r = row + d * DIR_ROW[dir];
+                int c = col + d * DIR_COL[dir];
+                while (isValidSpot(r, c) && board[r][c] == player) {
                     count++;
-                    r += d * dir[0];
-                    c += d * dir[1];
+                    r += d * DIR_ROW[dir];
+                    c += d * DIR_COL[dir];
                 }
             }
             if (count >= 5) return true;
@@ -425,6 +683,24 @@ public class GomokuBot {
         return false;
     }
     
+    // board coordinates like H8, columns A-O from the left, rows 1-15 from the top
+    static String moveName(int cell) {
+        return "" + (char) ('A' + cell % BOARD_SIZE) + (cell / BOARD_SIZE + 1);
+    }
+    
+    // engines always play white, so this is a copy of the board with the colors swapped
+    // when player (1 black, 2 white) is the one to move as black
+    static int[][] boardForEngine(int[][] board, int player) {
+        int[][] view = new int[BOARD_SIZE][BOARD_SIZE];
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                int stone = board[i][j];
+                view[i][j] = player == BOT || stone == EMPTY ? stone : 3 - stone;
+            }
+        }
+        return view;
+    }
+    
     // fallback move if no good options
     private int[] getBackupMove() {
         int center = BOARD_SIZE / 2;
@@ -444,56 +720,28 @@ public class GomokuBot {
         return allMoves.isEmpty() ? null : allMoves.get(rng.nextInt(allMoves.size()));
     }
     
-    // convert board to string for caching
-    private String getBoardAsString() {
-        StringBuilder sb = new StringBuilder();
+    // hash of the whole board, kept up to date by makeMove/undoMove
+    private long computeHash() {
+        long hash = 0;
         for (int i = 0; i < BOARD_SIZE; i++) {
             for (int j = 0; j < BOARD_SIZE; j++) {
-                sb.append(gameBoard[i][j]);
+                if (gameBoard[i][j] != EMPTY) {
+                    hash ^= ZOBRIST[gameBoard[i][j]][i * BOARD_SIZE + j];
+                }
             }
         }
-        return sb.toString();
+        return hash;
     }
     
     // check if position is on board
-    private boolean isValidSpot(int row, int col) {
+    static boolean isValidSpot(int row, int col) {
         return row >= 0 && row < BOARD_SIZE && col >= 0 && col < BOARD_SIZE;
     }
     
-    // make copy of board
-    private int[][] makeBoardCopy(int[][] original) {
-        int[][] copy = new int[BOARD_SIZE][BOARD_SIZE];
+    // copy the caller's board into our own
+    private void copyBoard(int[][] original) {
         for (int i = 0; i < BOARD_SIZE; i++) {
-            System.arraycopy(original[i], 0, copy[i], 0, BOARD_SIZE);
-        }
-        return copy;
-    }
-    
-    // helper class for moves with scores
-    private static class MoveWithScore {
-        int row, col, score;
-        
-        MoveWithScore(int row, int col, int score) {
-            this.row = row;
-            this.col = col;
-            this.score = score;
-        }
-        
-        int[] getMove() {
-            return new int[]{row, col};
-        }
-    }
-    
-    // helper class for pattern analysis
-    private static class PatternInfo {
-        int length, openSides, blockedSides;
-        boolean bothSidesOpen;
-        
-        PatternInfo(int length, int openSides, int blockedSides, boolean bothSidesOpen) {
-            this.length = length;
-            this.openSides = openSides;
-            this.blockedSides = blockedSides;
-            this.bothSidesOpen = bothSidesOpen;
+            System.arraycopy(original[i], 0, gameBoard[i], 0, BOARD_SIZE);
         }
     }
 }
\ No newline at end of file
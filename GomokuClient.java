@@ -0,0 +1,224 @@
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// connection to a GomokuServer, messages arrive on a background reader thread
+// usage for testing on localhost:
+//   java GomokuClient botgame [host] [port]        local bot plays black against the server bot
+//   java GomokuClient selfplay [host] [port]       two local bots play each other through the server
+//   java GomokuClient idle <count> [host] [port]   open many idle connections and hold them
+public class GomokuClient implements Closeable {
+    // callbacks run on the reader thread
+    public interface Listener {
+        void waiting();
+        void gameStarted(int myColor, int turnSeconds);
+        void moveMade(int color, int cell);
+        void gameOver(int winner, int reason);
+        void error(int code);
+        void disconnected();
+    }
+
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    private final Listener listener;
+    private volatile boolean closed;
+
+    public GomokuClient(String host, int port, Listener listener) throws IOException {
+        this.socket = new Socket(host, port);
+        this.socket.setTcpNoDelay(true);
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.listener = listener;
+
+        Thread reader = new Thread(this::readLoop, "gomoku-client");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    public void joinHuman() throws IOException {
+        send(GomokuProtocol.JOIN_HUMAN);
+    }
+
+    public void joinBot() throws IOException {
+        send(GomokuProtocol.JOIN_BOT);
+    }
+
+    public void sendMove(int cell) throws IOException {
+        send(GomokuProtocol.MOVE, cell);
+    }
+
+    public void resign() throws IOException {
+        send(GomokuProtocol.RESIGN);
+    }
+
+    private synchronized void send(byte type, int... payload) throws IOException {
+        out.writeByte(type);
+        for (int b : payload) out.writeByte(b);
+        out.flush();
+    }
+
+    public void close() {
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // nothing left to do
+        }
+    }
+
+    private void readLoop() {
+        try {
+            while (true) {
+                byte type = in.readByte();
+                int length = GomokuProtocol.payloadLength(type);
+                if (length < 0) throw new IOException("unknown message type " + type);
+                int a = length > 0 ? in.readUnsignedByte() : 0;
+                int b = length > 1 ? in.readUnsignedByte() : 0;
+                switch (type) {
+                    case GomokuProtocol.WAITING: listener.waiting(); break;
+                    case GomokuProtocol.GAME_START: listener.gameStarted(a, b); break;
+                    case GomokuProtocol.MOVE_MADE: listener.moveMade(a, b); break;
+                    case GomokuProtocol.GAME_OVER: listener.gameOver(a, b); break;
+                    case GomokuProtocol.ERROR: listener.error(a); break;
+                    default: throw new IOException("unexpected message type " + type);
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                closed = true;
+                listener.disconnected();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "botgame";
+        int next = mode.equals("idle") ? 2 : 1;
+        int count = mode.equals("idle") ? Integer.parseInt(args[1]) : 0;
+        String host = args.length > next ? args[next] : "localhost";
+        int port = args.length > next + 1 ? Integer.parseInt(args[next + 1]) : GomokuProtocol.DEFAULT_PORT;
+
+        switch (mode) {
+            case "botgame": {
+                ScriptedPlayer player = new ScriptedPlayer("black");
+                try (GomokuClient client = new GomokuClient(host, port, player)) {
+                    player.client = client;
+                    client.joinBot();
+                    player.done.await();
+                }
+                break;
+            }
+            case "selfplay": {
+                ScriptedPlayer first = new ScriptedPlayer("player 1");
+                ScriptedPlayer second = new ScriptedPlayer("player 2");
+                try (GomokuClient a = new GomokuClient(host, port, first);
+                     GomokuClient b = new GomokuClient(host, port, second)) {
+                    first.client = a;
+                    second.client = b;
+                    a.joinHuman();
+                    b.joinHuman();
+                    first.done.await();
+                    second.done.await();
+                }
+                break;
+            }
+            case "idle": {
+                List<GomokuClient> clients = new ArrayList<>();
+                long start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    clients.add(new GomokuClient(host, port, new IdleListener()));
+                }
+                System.out.println(count + " idle connections open after "
+                        + (System.nanoTime() - start) / 1000000 + "ms, press Enter to close them");
+                System.in.read();
+                for (GomokuClient client : clients) client.close();
+                break;
+            }
+            default:
+                System.out.println("usage: java GomokuClient botgame|selfplay|idle <count> [host] [port]");
+        }
+    }
+
+    // ignores everything, for holding connections open
+    private static class IdleListener implements Listener {
+        public void waiting() {
+        }
+
+        public void gameStarted(int myColor, int turnSeconds) {
+        }
+
+        public void moveMade(int color, int cell) {
+        }
+
+        public void gameOver(int winner, int reason) {
+        }
+
+        public void error(int code) {
+        }
+
+        public void disconnected() {
+        }
+    }
+
+    // plays with a local GomokuBot and prints the game, for testing a server
+    private static class ScriptedPlayer implements Listener {
+        private static final int BOARD_SIZE = GomokuProtocol.BOARD_SIZE;
+        private static final long MOVE_MILLIS = 200;
+
+        final String name;
+        final CountDownLatch done = new CountDownLatch(1);
+        final int[][] board = new int[BOARD_SIZE][BOARD_SIZE];
+        final GomokuBot bot = new GomokuBot();
+        volatile GomokuClient client;
+        int myColor;
+
+        ScriptedPlayer(String name) {
+            this.name = name;
+            bot.setTimeBudget(MOVE_MILLIS);
+        }
+
+        public void waiting() {
+            System.out.println(name + ": waiting for an opponent");
+        }
+
+        public void gameStarted(int color, int turnSeconds) {
+            myColor = color;
+            System.out.println(name + ": playing " + (color == GomokuProtocol.BLACK ? "black" : "white")
+                    + ", " + turnSeconds + "s per move");
+            if (color == GomokuProtocol.BLACK) playMove();
+        }
+
+        public void moveMade(int color, int cell) {
+            int row = cell / BOARD_SIZE, col = cell % BOARD_SIZE;
+            board[row][col] = color;
+
+            // a winning move is followed by GAME_OVER, nothing left to play
+            if (color != myColor && !GomokuBot.checkWinAt(board, row, col, color)) playMove();
+        }
+
+        public void gameOver(int winner, int reason) {
+            String result = winner == 0 ? "draw" : (winner == myColor ? "won" : "lost");
+            System.out.println(name + ": " + result + " (" + GomokuProtocol.reasonText(reason) + ")");
+            done.countDown();
+        }
+
+        public void error(int code) {
+            System.out.println(name + ": server error " + code);
+        }
+
+        public void disconnected() {
+            done.countDown();
+        }
+
+        private void playMove() {
+            int[] move = bot.findBestMove(GomokuBot.boardForEngine(board, myColor));
+            try {
+                client.sendMove(GomokuProtocol.cell(move[0], move[1]));
+            } catch (IOException e) {
+                done.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+// common interface for the different bot engines
+// board uses 0 = empty, 1 = human (black), 2 = bot (white)
+public interface GomokuEngine {
+    // pick a move for the bot (white) on the given board, returns {row, col}
+    int[] findBestMove(int[][] currentBoard);
+
+    // limit thinking time per move in milliseconds (0 means engine default)
+    void setTimeBudget(long millis);
+
+    // limit search nodes per move (playouts for MCTS), 0 means no limit
+    void setNodeLimit(long nodes);
+
+    // get intermediate results while searching (null to turn off)
+    void setAnalysisListener(AnalysisListener listener);
+
+    // ask a running search to finish early with what it has, safe from any thread
+    void stopSearch();
+
+    // asked now and then from inside a search whether to go on (null to turn off), unlike stopSearch
+    // it also catches a search that only starts after the caller gave up on it
+    void setCheckpoint(SearchCheckpoint checkpoint);
+
+    // short searches on made-up positions so the JIT has compiled the search before the first real move
+    void warmUp();
+
+    // free threads and memory the engine holds, it can't search after this
+    void close();
+}
@@ -3,6 +3,9 @@ import java.awt.*;
 import java.awt.event.*;
 import javax.imageio.ImageIO;
 import javax.sound.sampled.*;
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class GomokuGame {
     // board setup stuff
@@ -25,11 +28,16 @@ public class GomokuGame {
     private boolean gameOver = false;
     private boolean vsBot = false;
 
-    // visual and audio assets
-    private Image backgroundImage;
-    private Image blackStone;
-    private Image whiteStone;
-    private Clip blackSound, whiteSound, winSound;
+    // visual and audio assets, decoded in the background after the window shows up
+    private volatile Image backgroundImage;
+    private volatile Image blackStone;
+    private volatile Image whiteStone;
+    private volatile Clip blackSound, whiteSound, winSound;
+    private CompletableFuture<Void> stonesReady;
+    private CompletableFuture<Void> assetsReady;
+
+    // startup run that only loads and warms everything, used to record an AppCDS archive
+    private boolean cdsTraining;
 
     // timer related stuff
     private static final int TURN_TIME_SECONDS = 60;
@@ -38,13 +46,41 @@ public class GomokuGame {
     private JLabel timerLabel;
     private JLabel winLabel;
 
-    // ai opponent
-    private GomokuBot bot;
+    // ai opponent, picked per game from the engine chooser
+    private static final long MCTS_TIME_BUDGET = 2000;
+    private static final String NNUE_WEIGHTS = "gomoku.nnue";
+    private GomokuEngine bot;
+    private GomokuBot alphaBetaBot;
+    private GomokuMctsBot mctsBot;
+    private JComboBox<String> engineChooser;
+
+    // searches run off the EDT, results for an old position are dropped
+    private ExecutorService engineThread;
+    private volatile int positionId;
+    private volatile boolean analysisOn;
+
+    // live analysis overlay
+    private static final long ANALYSIS_TIME_BUDGET = 10000;
+    private static final int ANALYSIS_REFRESH_MS = 100;
+    private GomokuBot analysisBot;
+    private ExecutorService analysisThread;
+    private JCheckBox analysisToggle;
+    private JLabel analysisLabel;
+    private final AtomicReference<AnalysisInfo> latestAnalysis = new AtomicReference<>();
+    private AnalysisInfo shownAnalysis;
+    private Timer analysisRefresh;
+
+    // online play through a GomokuServer, null when playing locally
+    private GomokuClient online;
+    private int onlineColor;
+    private int onlineSession;
 
     public static void main(String[] args) throws Exception {
         SwingUtilities.invokeLater(() -> {
             try {
-                new GomokuGame().start();
+                GomokuGame game = new GomokuGame();
+                game.cdsTraining = args.length > 0 && args[0].equals("--cds-training");
+                game.start();
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -52,20 +88,95 @@ public class GomokuGame {
     }
 
     public void start() throws Exception {
-        loadResources();
         setupUI();
-        bot = new GomokuBot();
+        loadResources();
+        alphaBetaBot = new GomokuBot();
+        analysisBot = new GomokuBot();
+        analysisBot.setTimeBudget(ANALYSIS_TIME_BUDGET);
+
+        // use the neural evaluator if a trained weight file is around, a bad one falls back to patterns
+        if (new java.io.File(NNUE_WEIGHTS).exists()) {
+            try {
+                NnueEvaluator nnue = NnueEvaluator.load(NNUE_WEIGHTS);
+                alphaBetaBot.setEvaluator(nnue);
+                analysisBot.setEvaluator(nnue.copy());
+            } catch (IOException e) {
+                System.err.println("couldn't load " + NNUE_WEIGHTS + " (" + e.getMessage() + "), using the pattern evaluation");
+            }
+        }
+        mctsBot = new GomokuMctsBot();
+        mctsBot.setTimeBudget(MCTS_TIME_BUDGET);
+        bot = alphaBetaBot;
+
+        engineThread = newSearchThread("gomoku-bot");
+        analysisThread = newSearchThread("gomoku-analysis");
+
+        // warm the engines up on the bot thread so the first real move runs at full speed
+        CompletableFuture<Void> warmedUp = CompletableFuture.allOf(
+                CompletableFuture.runAsync(alphaBetaBot::warmUp, engineThread),
+                CompletableFuture.runAsync(mctsBot::warmUp, engineThread));
+
+        if (cdsTraining) {
+            // open the game screen once so its classes get archived too, then quit
+            CompletableFuture.allOf(assetsReady, warmedUp).thenRun(() -> SwingUtilities.invokeLater(() -> {
+                resetGame();
+                screenManager.show(mainPanel, "game");
+                SwingUtilities.invokeLater(() -> System.exit(0));
+            }));
+        }
     }
 
-    // load images and sounds
-    private void loadResources() throws Exception {
+    // single background thread so searches on one engine never overlap
+    private static ExecutorService newSearchThread(String name) {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // load images and sounds in parallel without blocking the EDT
+    private void loadResources() {
         ClassLoader loader = getClass().getClassLoader();
-        backgroundImage = ImageIO.read(loader.getResource("assets/background.png"));
-        blackStone = ImageIO.read(loader.getResource("assets/black.png"));
-        whiteStone = ImageIO.read(loader.getResource("assets/white.png"));
-        blackSound = loadSound(loader.getResource("assets/black.wav"));
-        whiteSound = loadSound(loader.getResource("assets/white.wav"));
-        winSound = loadSound(loader.getResource("assets/win.wav"));
+        CompletableFuture<Void> background = loadAsync(() -> {
+            backgroundImage = ImageIO.read(loader.getResource("assets/background.png"));
+            SwingUtilities.invokeLater(() -> mainPanel.repaint());
+        });
+        CompletableFuture<Void> black = loadAsync(() -> blackStone = ImageIO.read(loader.getResource("assets/black.png")));
+        CompletableFuture<Void> white = loadAsync(() -> whiteStone = ImageIO.read(loader.getResource("assets/white.png")));
+        CompletableFuture<Void> sounds = CompletableFuture.allOf(
+                loadAsync(() -> blackSound = loadSound(loader.getResource("assets/black.wav"))),
+                loadAsync(() -> whiteSound = loadSound(loader.getResource("assets/white.wav"))),
+                loadAsync(() -> winSound = loadSound(loader.getResource("assets/win.wav"))));
+
+        // sounds are skipped while still loading, so the board only needs the stones
+        stonesReady = CompletableFuture.allOf(black, white);
+        assetsReady = CompletableFuture.allOf(background, stonesReady, sounds);
+    }
+
+    // something that loads one asset
+    private interface AssetLoader {
+        void load() throws Exception;
+    }
+
+    // run a loader on a background thread, a failed asset is reported and left out
+    private static CompletableFuture<Void> loadAsync(AssetLoader loader) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                loader.load();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // run on the EDT once the stone images are decoded
+    private void whenStonesReady(Runnable action) {
+        if (stonesReady.isDone()) {
+            action.run();
+        } else {
+            stonesReady.thenRun(() -> SwingUtilities.invokeLater(action));
+        }
     }
 
     // helper for loading audio clips
@@ -109,24 +220,34 @@ public class GomokuGame {
 
         JButton localButton = new JButton("Local 1v1");
         localButton.setFont(new Font("Futura", Font.PLAIN, 36));
-        localButton.addActionListener(e -> {
+        localButton.addActionListener(e -> whenStonesReady(() -> {
             vsBot = false;
             resetGame();
             screenManager.show(mainPanel, "game");
-            startTurnTimer();
-        });
+            beginHumanTurn();
+        }));
 
         JButton botButton = new JButton("vs Computer");
         botButton.setFont(new Font("Futura", Font.PLAIN, 36));
-        botButton.addActionListener(e -> {
+        botButton.addActionListener(e -> whenStonesReady(() -> {
             vsBot = true;
+            bot = engineChooser.getSelectedIndex() == 1 ? mctsBot : alphaBetaBot;
             resetGame();
             screenManager.show(mainPanel, "game");
-            startTurnTimer();
-        });
+            beginHumanTurn();
+        }));
+
+        JButton onlineButton = new JButton("Online");
+        onlineButton.setFont(new Font("Futura", Font.PLAIN, 36));
+        onlineButton.addActionListener(e -> whenStonesReady(this::joinOnline));
+
+        engineChooser = new JComboBox<>(new String[]{"Alpha-Beta", "MCTS"});
+        engineChooser.setFont(new Font("Futura", Font.PLAIN, 24));
 
         buttonPanel.add(localButton);
         buttonPanel.add(botButton);
+        buttonPanel.add(onlineButton);
+        buttonPanel.add(engineChooser);
         startPanel.add(buttonPanel, BorderLayout.CENTER);
 
         // labels for timer and winner
@@ -147,9 +268,33 @@ public class GomokuGame {
         backButton.setFont(new Font("Futura", Font.PLAIN, 16));
         backButton.addActionListener(e -> {
             stopTurnTimer();
+            positionChanged();
+            if (bot != null) bot.stopSearch();
+            leaveOnline();
             screenManager.show(mainPanel, "start");
         });
 
+        // analysis overlay toggle and status line
+        analysisToggle = new JCheckBox("Analysis");
+        analysisToggle.setFont(new Font("Futura", Font.PLAIN, 16));
+        analysisToggle.setOpaque(false);
+        analysisToggle.addActionListener(e -> {
+            analysisOn = analysisToggle.isSelected();
+            if (analysisOn) {
+                if (!(vsBot && !blackTurn)) startAnalysis();
+            } else {
+                analysisBot.stopSearch();
+            }
+            shownAnalysis = null;
+            refreshAnalysis();
+        });
+        analysisLabel = new JLabel("", SwingConstants.CENTER);
+        analysisLabel.setFont(new Font("Futura", Font.PLAIN, 14));
+
+        // pull the latest analysis at a fixed rate so the search never waits on the EDT
+        analysisRefresh = new Timer(ANALYSIS_REFRESH_MS, e -> refreshAnalysis());
+        analysisRefresh.start();
+
         // game screen layout
         JPanel gameContainer = new JPanel(new BorderLayout());
         gamePanel = new GraphicsPanel();
@@ -160,7 +305,13 @@ public class GomokuGame {
         });
 
         JPanel topPanel = new JPanel(new BorderLayout());
+        JPanel analysisPanel = new JPanel(new BorderLayout());
+        analysisPanel.setOpaque(false);
+        analysisPanel.add(analysisToggle, BorderLayout.WEST);
+        analysisPanel.add(analysisLabel, BorderLayout.CENTER);
+
         topPanel.add(backButton, BorderLayout.WEST);
+        topPanel.add(analysisPanel, BorderLayout.CENTER);
         topPanel.add(timerLabel, BorderLayout.EAST);
         topPanel.setOpaque(false);
 
@@ -180,6 +331,10 @@ public class GomokuGame {
     private void handleMouseClick(int x, int y) {
         if (gameOver) return;
         if (vsBot && !blackTurn) return;
+        if (online != null) {
+            clickOnline(x, y);
+            return;
+        }
 
         // convert pixel coords to grid
         int row = (y - OFFSET_Y + CELL_SIZE / 2) / CELL_SIZE;
@@ -187,6 +342,7 @@ public class GomokuGame {
 
         if (row >= 0 && row < ROWS && col >= 0 && col < COLS && board[row][col] == 0) {
             board[row][col] = blackTurn ? 1 : 2;
+            positionChanged();
             playMoveSound();
             gamePanel.repaint();
 
@@ -201,7 +357,7 @@ public class GomokuGame {
                     stopTurnTimer();
                     botMove();
                 } else {
-                    startTurnTimer();
+                    beginHumanTurn();
                 }
             }
         }
@@ -215,25 +371,230 @@ public class GomokuGame {
         winLabel.setText("Computer is computing...");
         gamePanel.repaint();
 
-        // add small delay for drama
-        Timer botDelay = new Timer(800, evt -> {
-            int[] move = bot.findBestMove(board);
-            board[move[0]][move[1]] = 2;
-            playMoveSound();
-            winLabel.setText(originalText);
-            gamePanel.repaint();
+        int id = positionId;
+        int[][] position = GomokuBot.boardForEngine(board, 2);
+        GomokuEngine engine = bot;
+
+        // add small delay for drama, then search in the background so the overlay can update
+        // the checkpoint drops the search if the position moved on, even before it got going
+        Timer botDelay = new Timer(800, evt -> engineThread.submit(() -> {
+            engine.setAnalysisListener(info -> publishAnalysis(id, info));
+            engine.setCheckpoint(nodes -> id == positionId);
+            int[] move = engine.findBestMove(position);
+            engine.setCheckpoint(null);
+            engine.setAnalysisListener(null);
+            SwingUtilities.invokeLater(() -> applyBotMove(id, move, originalText));
+        }));
+        botDelay.setRepeats(false);
+        botDelay.start();
+    }
 
-            if (checkWin(move[0], move[1])) {
-                gameOver = true;
-                stopTurnTimer();
-                showWinAndExit("Computer wins!");
-            } else {
+    // place the computer's stone, unless the game moved on while it was thinking
+    private void applyBotMove(int id, int[] move, String originalText) {
+        if (id != positionId || gameOver) return;
+
+        board[move[0]][move[1]] = 2;
+        positionChanged();
+        playMoveSound();
+        winLabel.setText(originalText);
+        gamePanel.repaint();
+
+        if (checkWin(move[0], move[1])) {
+            gameOver = true;
+            stopTurnTimer();
+            showWinAndExit("Computer wins!");
+        } else {
+            blackTurn = !blackTurn;
+            beginHumanTurn();
+        }
+    }
+
+    // ask for a server and join a game there
+    private void joinOnline() {
+        String address = JOptionPane.showInputDialog(frame, "Server (host:port)",
+                "localhost:" + GomokuProtocol.DEFAULT_PORT);
+        if (address == null || address.trim().isEmpty()) return;
+        Object[] opponents = {"Another player", "Server bot"};
+        int choice = JOptionPane.showOptionDialog(frame, "Who do you want to play?", "Online",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, opponents, opponents[0]);
+        if (choice < 0) return;
+
+        String[] parts = address.trim().split(":");
+        String host = parts[0];
+        int port;
+        try {
+            port = parts.length > 1 ? Integer.parseInt(parts[1]) : GomokuProtocol.DEFAULT_PORT;
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(frame, "Bad port: " + parts[1]);
+            return;
+        }
+
+        vsBot = false;
+        onlineColor = 0;
+        resetGame();
+        gameOver = true; // nothing to click until the server starts the game
+        timerLabel.setText("");
+        winLabel.setText("Connecting to " + host + ":" + port + "...");
+        screenManager.show(mainPanel, "game");
+
+        // connect off the EDT, a slow server shouldn't freeze the window
+        int session = ++onlineSession;
+        CompletableFuture.runAsync(() -> {
+            try {
+                GomokuClient client = new GomokuClient(host, port, new OnlineListener(session));
+                // queued before joining, so it runs before any game message
+                SwingUtilities.invokeLater(() -> {
+                    if (session == onlineSession) online = client;
+                    else client.close();
+                });
+                if (choice == 1) client.joinBot();
+                else client.joinHuman();
+            } catch (IOException ex) {
+                SwingUtilities.invokeLater(() -> {
+                    if (session == onlineSession) winLabel.setText("Couldn't connect: " + ex.getMessage());
+                });
+            }
+        });
+    }
+
+    // send the move, the stone only appears once the server accepts it
+    private void clickOnline(int x, int y) {
+        if (onlineColor != (blackTurn ? GomokuProtocol.BLACK : GomokuProtocol.WHITE)) return;
+
+        int row = (y - OFFSET_Y + CELL_SIZE / 2) / CELL_SIZE;
+        int col = (x - OFFSET_X + CELL_SIZE / 2) / CELL_SIZE;
+        if (row >= 0 && row < ROWS && col >= 0 && col < COLS && board[row][col] == 0) {
+            try {
+                online.sendMove(GomokuProtocol.cell(row, col));
+            } catch (IOException ex) {
+                winLabel.setText("Lost connection to the server");
+            }
+        }
+    }
+
+    // close the connection when leaving the game screen
+    private void leaveOnline() {
+        onlineSession++;
+        if (online != null) {
+            online.close();
+            online = null;
+        }
+    }
+
+    // server messages arrive on the client's reader thread, hand them to the EDT
+    private class OnlineListener implements GomokuClient.Listener {
+        private final int session;
+
+        OnlineListener(int session) {
+            this.session = session;
+        }
+
+        // drop messages from a connection the player already left
+        private void onEdt(Runnable action) {
+            SwingUtilities.invokeLater(() -> {
+                if (session == onlineSession) action.run();
+            });
+        }
+
+        public void waiting() {
+            onEdt(() -> winLabel.setText("Waiting for an opponent..."));
+        }
+
+        public void gameStarted(int myColor, int turnSeconds) {
+            onEdt(() -> {
+                onlineColor = myColor;
+                gameOver = false;
+                winLabel.setText(myColor == GomokuProtocol.BLACK ? "You play black" : "You play white");
+                startTurnTimer();
+            });
+        }
+
+        public void moveMade(int color, int cell) {
+            onEdt(() -> {
+                board[cell / COLS][cell % COLS] = color;
+                blackTurn = color == GomokuProtocol.BLACK;
+                positionChanged();
+                playMoveSound();
+                gamePanel.repaint();
                 blackTurn = !blackTurn;
                 startTurnTimer();
-            }
+            });
+        }
+
+        public void gameOver(int winner, int reason) {
+            onEdt(() -> {
+                gameOver = true;
+                stopTurnTimer();
+                String result = winner == 0 ? "Draw" : (winner == onlineColor ? "You win!" : "You lose!");
+                showWinAndExit(result + " (" + GomokuProtocol.reasonText(reason) + ")");
+            });
+        }
+
+        public void error(int code) {
+            // only happens on a click racing the opponent's move, the next update fixes the board
+        }
+
+        public void disconnected() {
+            onEdt(() -> {
+                if (!gameOver) {
+                    gameOver = true;
+                    stopTurnTimer();
+                    winLabel.setText("Lost connection to the server");
+                }
+            });
+        }
+    }
+
+    // start the clock and, if turned on, analyze for the player to move
+    private void beginHumanTurn() {
+        startTurnTimer();
+        startAnalysis();
+    }
+
+    // board changed: anything still computing is for an old position
+    private void positionChanged() {
+        positionId++;
+        latestAnalysis.set(null);
+        analysisBot.stopSearch();
+    }
+
+    // analyze the current position in the background
+    private void startAnalysis() {
+        if (!analysisToggle.isSelected() || gameOver || online != null) return;
+
+        int id = positionId;
+
+        int[][] position = GomokuBot.boardForEngine(board, blackTurn ? 1 : 2);
+        analysisThread.submit(() -> {
+            if (id != positionId) return;
+            analysisBot.setAnalysisListener(info -> publishAnalysis(id, info));
+            // a stopSearch between the check above and the search start would be lost, this isn't
+            analysisBot.setCheckpoint(nodes -> id == positionId && analysisOn);
+            analysisBot.findBestMove(position);
+            analysisBot.setCheckpoint(null);
+            analysisBot.setAnalysisListener(null);
         });
-        botDelay.setRepeats(false);
-        botDelay.start();
+    }
+
+    // called on search threads, only keeps the newest result for the current position
+    private void publishAnalysis(int id, AnalysisInfo info) {
+        if (id == positionId) {
+            latestAnalysis.set(info);
+        }
+    }
+
+    // runs on the refresh timer, repaints only when there is something new
+    private void refreshAnalysis() {
+        AnalysisInfo info = analysisToggle.isSelected() ? latestAnalysis.get() : null;
+        if (info == shownAnalysis) return;
+        shownAnalysis = info;
+        if (info == null) {
+            analysisLabel.setText("");
+        } else {
+            String best = info.bestMove < 0 ? "" : "  best " + GomokuBot.moveName(info.bestMove);
+            analysisLabel.setText(info.summary + best);
+        }
+        gamePanel.repaint();
     }
 
     // begin countdown for turn
@@ -246,6 +607,8 @@ public class GomokuGame {
             updateTimerLabel();
             if (timeLeft <= 0) {
                 stopTurnTimer();
+                // online the server keeps the real clock and ends the game
+                if (online != null) return;
                 gameOver = true;
                 String loser = blackTurn ? (vsBot ? "You" : "Black") : (vsBot ? "Computer" : "White");
                 String winner = blackTurn ? (vsBot ? "Computer" : "White") : (vsBot ? "You" : "Black");
@@ -266,6 +629,10 @@ public class GomokuGame {
     // refresh timer display text
     private void updateTimerLabel() {
         String player = blackTurn ? (vsBot ? "Your" : "Black") : (vsBot ? "Computer's" : "White");
+        if (online != null) {
+            boolean mine = onlineColor == (blackTurn ? GomokuProtocol.BLACK : GomokuProtocol.WHITE);
+            player = mine ? "Your" : "Opponent's";
+        }
         timerLabel.setText(player + " turn - " + timeLeft + "s  ");
     }
 
@@ -322,6 +689,7 @@ public class GomokuGame {
                 board[i][j] = 0;
         blackTurn = true;
         gameOver = false;
+        positionChanged();
         winLabel.setText("");
         gamePanel.repaint();
     }
@@ -353,6 +721,71 @@ public class GomokuGame {
                         g.drawImage(whiteStone, x, y, CELL_SIZE - 2, CELL_SIZE - 2, this);
                 }
             }
+
+            if (shownAnalysis != null) {
+                drawAnalysis((Graphics2D) g, shownAnalysis);
+            }
+        }
+
+        // candidate heatmap plus numbered arrows along the principal variation
+        private void drawAnalysis(Graphics2D g, AnalysisInfo info) {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+            int low = Integer.MAX_VALUE, high = Integer.MIN_VALUE;
+            for (int score : info.candidateScores) {
+                low = Math.min(low, score);
+                high = Math.max(high, score);
+            }
+            int spot = CELL_SIZE * 2 / 3;
+            for (int i = 0; i < info.candidateMoves.length; i++) {
+                int row = info.candidateMoves[i] / COLS, col = info.candidateMoves[i] % COLS;
+                if (board[row][col] != 0) continue;
+
+                // blue for weak moves up to red for the strongest
+                float t = high > low ? (float) (info.candidateScores[i] - low) / (high - low) : 1f;
+                g.setColor(new Color(t, 0.2f, 1f - t, 0.25f + 0.45f * t));
+                g.fillOval(OFFSET_X + col * CELL_SIZE - spot / 2, OFFSET_Y + row * CELL_SIZE - spot / 2, spot, spot);
+            }
+
+            // first move of the line is for the side to move
+            g.setStroke(new BasicStroke(2.5f));
+            g.setFont(new Font("Futura", Font.BOLD, 14));
+            FontMetrics metrics = g.getFontMetrics();
+            for (int i = 0; i < info.pv.length; i++) {
+                int x = OFFSET_X + (info.pv[i] % COLS) * CELL_SIZE;
+                int y = OFFSET_Y + (info.pv[i] / COLS) * CELL_SIZE;
+                boolean blackMove = (i % 2 == 0) == blackTurn;
+                Color moveColor = blackMove ? new Color(0, 0, 0, 200) : new Color(255, 255, 255, 220);
+
+                if (i + 1 < info.pv.length) {
+                    int nextX = OFFSET_X + (info.pv[i + 1] % COLS) * CELL_SIZE;
+                    int nextY = OFFSET_Y + (info.pv[i + 1] / COLS) * CELL_SIZE;
+                    g.setColor(new Color(200, 30, 30, 160));
+                    drawArrow(g, x, y, nextX, nextY);
+                }
+
+                int size = CELL_SIZE / 2;
+                g.setColor(moveColor);
+                g.fillOval(x - size / 2, y - size / 2, size, size);
+                g.setColor(blackMove ? Color.WHITE : Color.BLACK);
+                String label = String.valueOf(i + 1);
+                g.drawString(label, x - metrics.stringWidth(label) / 2, y + metrics.getAscent() / 2 - 1);
+            }
+        }
+
+        // line between two stones with a head, stopping short of the target stone
+        private void drawArrow(Graphics2D g, int fromX, int fromY, int toX, int toY) {
+            double angle = Math.atan2(toY - fromY, toX - fromX);
+            int inset = CELL_SIZE / 4;
+            int endX = (int) (toX - inset * Math.cos(angle));
+            int endY = (int) (toY - inset * Math.sin(angle));
+            int startX = (int) (fromX + inset * Math.cos(angle));
+            int startY = (int) (fromY + inset * Math.sin(angle));
+            g.drawLine(startX, startY, endX, endY);
+
+            int head = 8;
+            g.drawLine(endX, endY, (int) (endX - head * Math.cos(angle - Math.PI / 6)), (int) (endY - head * Math.sin(angle - Math.PI / 6)));
+            g.drawLine(endX, endY, (int) (endX - head * Math.cos(angle + Math.PI / 6)), (int) (endY - head * Math.sin(angle + Math.PI / 6)));
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,596 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class GomokuMctsBot implements GomokuEngine {
+    private static final int BOARD_SIZE = 15;
+    private static final int BOT = 2;
+    private static final int HUMAN = 1;
+    private static final int EMPTY = 0;
+
+    // search settings
+    private static final long DEFAULT_TIME_BUDGET = 2000;
+    private static final int MAX_CHILDREN = 16;
+    private static final int ROLLOUT_LIMIT = 40;
+    private static final int ROLLOUT_NOISE = 200;
+    private static final double EXPLORATION = 1.0;
+    private static final int POOL_CAPACITY = 1 << 18;
+    private static final long PUBLISH_INTERVAL_MS = 100;
+    private static final int MAX_PV_LENGTH = 10;
+    private static final long WARMUP_MILLIS = 150;
+    private static final int WARMUP_POSITIONS = 2;
+
+    // node states
+    private static final int LEAF = 0;
+    private static final int EXPANDING = 1;
+    private static final int EXPANDED = 2;
+
+    // results are stored as half points so draws fit in an int
+    private static final int WIN_POINTS = 2;
+    private static final int DRAW_POINTS = 1;
+
+    private final int threadCount;
+    private final ExecutorService workers;
+    private long timeBudgetMillis = DEFAULT_TIME_BUDGET;
+    private volatile boolean stopRequested;
+    private long nodeLimit = Long.MAX_VALUE;
+    private volatile AnalysisListener analysisListener;
+    private volatile SearchCheckpoint checkpoint;
+
+    // two pools so the reused subtree can be compacted between moves
+    private NodePool active = new NodePool(POOL_CAPACITY);
+    private NodePool spare = new NodePool(POOL_CAPACITY);
+    private int[] compactQueue = new int[POOL_CAPACITY * 2];
+
+    // root of the current tree and the position it belongs to
+    private int[][] rootBoard;
+    private volatile boolean poolFull;
+
+    public GomokuMctsBot() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public GomokuMctsBot(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+        this.workers = Executors.newFixedThreadPool(this.threadCount, r -> {
+            Thread t = new Thread(r, "gomoku-mcts");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void setTimeBudget(long millis) {
+        this.timeBudgetMillis = millis > 0 ? millis : DEFAULT_TIME_BUDGET;
+    }
+
+    // limit playouts per move (counted at the root, including reused ones), 0 means no limit
+    public void setNodeLimit(long nodes) {
+        this.nodeLimit = nodes > 0 ? nodes : Long.MAX_VALUE;
+    }
+
+    public void setAnalysisListener(AnalysisListener listener) {
+        this.analysisListener = listener;
+    }
+
+    public void stopSearch() {
+        stopRequested = true;
+    }
+
+    // checked each time the tree is published, on the thread running findBestMove
+    public void setCheckpoint(SearchCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public void warmUp() {
+        long savedBudget = timeBudgetMillis;
+        AnalysisListener savedListener = analysisListener;
+        timeBudgetMillis = WARMUP_MILLIS;
+        analysisListener = null;
+
+        Random positions = new Random(7);
+        for (int i = 0; i < WARMUP_POSITIONS; i++) {
+            findBestMove(GomokuBot.syntheticPosition(positions, 12));
+        }
+
+        // next search starts with a fresh tree
+        timeBudgetMillis = savedBudget;
+        analysisListener = savedListener;
+        rootBoard = null;
+    }
+
+    public void close() {
+        workers.shutdownNow();
+        active = null;
+        spare = null;
+        compactQueue = null;
+        rootBoard = null;
+    }
+
+    // main method to find best move
+    public int[] findBestMove(int[][] currentBoard) {
+        int[][] board = makeBoardCopy(currentBoard);
+        stopRequested = false;
+
+        // take instant wins and block instant losses without searching
+        int[] winMove = findInstantWin(board, BOT);
+        if (winMove != null) return winMove;
+        int[] blockMove = findInstantWin(board, HUMAN);
+        if (blockMove != null) return blockMove;
+
+        prepareRoot(board);
+        runSearch(board);
+
+        int best = mostVisitedChild(0);
+        if (best < 0) {
+            return getBackupMove(board);
+        }
+        int move = active.move[best];
+        return new int[]{move / BOARD_SIZE, move % BOARD_SIZE};
+    }
+
+    // reuse the subtree from the last search if the game just moved on
+    private void prepareRoot(int[][] board) {
+        int reusedRoot = -1;
+        if (rootBoard != null) {
+            int botMove = -1, humanMove = -1, changes = 0;
+            boolean sameGame = true;
+            for (int row = 0; row < BOARD_SIZE && sameGame; row++) {
+                for (int col = 0; col < BOARD_SIZE; col++) {
+                    if (rootBoard[row][col] == board[row][col]) continue;
+                    changes++;
+                    if (rootBoard[row][col] != EMPTY) {
+                        sameGame = false;
+                        break;
+                    }
+                    if (board[row][col] == BOT) botMove = row * BOARD_SIZE + col;
+                    else humanMove = row * BOARD_SIZE + col;
+                }
+            }
+            if (sameGame && changes == 0) {
+                reusedRoot = 0;
+            } else if (sameGame && changes == 2 && botMove >= 0 && humanMove >= 0) {
+                int child = findChild(0, botMove);
+                if (child >= 0) reusedRoot = findChild(child, humanMove);
+            }
+        }
+
+        if (reusedRoot > 0) {
+            compactFrom(reusedRoot);
+        } else if (reusedRoot < 0) {
+            active.reset();
+        }
+        poolFull = false;
+        rootBoard = board;
+    }
+
+    // find the child of a node that plays the given move
+    private int findChild(int node, int move) {
+        if (active.state.get(node) != EXPANDED) return -1;
+        int first = active.firstChild[node];
+        for (int i = 0; i < active.childCount[node]; i++) {
+            if (active.move[first + i] == move) return first + i;
+        }
+        return -1;
+    }
+
+    // copy the subtree under newRoot into the spare pool and swap pools
+    private void compactFrom(int newRoot) {
+        spare.reset();
+        spare.copyNode(active, newRoot, 0);
+        spare.move[0] = -1;
+
+        int head = 0, tail = 0;
+        compactQueue[tail++] = newRoot;
+        compactQueue[tail++] = 0;
+        while (head < tail) {
+            int from = compactQueue[head++];
+            int to = compactQueue[head++];
+            if (spare.state.get(to) != EXPANDED) {
+                spare.state.set(to, LEAF);
+                continue;
+            }
+            int count = active.childCount[from];
+            int newFirst = spare.nextFree.getAndAdd(count);
+            int oldFirst = active.firstChild[from];
+            for (int i = 0; i < count; i++) {
+                spare.copyNode(active, oldFirst + i, newFirst + i);
+                compactQueue[tail++] = oldFirst + i;
+                compactQueue[tail++] = newFirst + i;
+            }
+            spare.firstChild[to] = newFirst;
+            spare.childCount[to] = count;
+        }
+
+        NodePool temp = active;
+        active = spare;
+        spare = temp;
+    }
+
+    // run playouts on every worker until the time budget runs out
+    private void runSearch(int[][] board) {
+        long deadline = System.nanoTime() + timeBudgetMillis * 1000000L;
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            tasks.add(() -> {
+                SearchWorker worker = new SearchWorker(board);
+                while (!stopRequested && System.nanoTime() < deadline && active.visits.get(0) < nodeLimit) {
+                    worker.runPlayout();
+                }
+                return null;
+            });
+        }
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (Callable<Void> task : tasks) {
+                futures.add(workers.submit(task));
+            }
+
+            // wait for the workers, sending a snapshot of the tree every so often
+            for (Future<Void> f : futures) {
+                while (true) {
+                    try {
+                        f.get(PUBLISH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        publishAnalysis();
+                        SearchCheckpoint check = checkpoint;
+                        if (check != null && !check.proceed(active.visits.get(0))) stopRequested = true;
+                    }
+                }
+            }
+            publishAnalysis();
+        } catch (InterruptedException e) {
+            // the workers still write into the pool, let them finish before anything else touches it
+            stopRequested = true;
+            waitForWorkers(futures);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            stopRequested = true;
+            waitForWorkers(futures);
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    // wait out the workers without giving up on an interrupt
+    private static void waitForWorkers(List<Future<Void>> futures) {
+        for (Future<Void> f : futures) {
+            while (true) {
+                try {
+                    f.get();
+                    break;
+                } catch (InterruptedException e) {
+                    // keep waiting, the caller restores the flag
+                } catch (ExecutionException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // root children visits as candidate scores, most visited line as the PV
+    private void publishAnalysis() {
+        AnalysisListener listener = analysisListener;
+        if (listener == null || active.state.get(0) != EXPANDED) return;
+
+        int first = active.firstChild[0];
+        int count = active.childCount[0];
+        int[] moves = new int[count];
+        int[] visits = new int[count];
+        for (int i = 0; i < count; i++) {
+            moves[i] = active.move[first + i];
+            visits[i] = active.visits.get(first + i);
+        }
+
+        int[] line = new int[MAX_PV_LENGTH];
+        int lineLength = 0;
+        int node = mostVisitedChild(0);
+        int best = node;
+        while (node >= 0 && lineLength < MAX_PV_LENGTH && active.visits.get(node) > 0) {
+            line[lineLength++] = active.move[node];
+            node = mostVisitedChild(node);
+        }
+        if (best < 0) return;
+
+        int bestVisits = Math.max(1, active.visits.get(best));
+        int winPerMille = (int) (active.wins.get(best) * 500L / bestVisits);
+        String summary = active.visits.get(0) + " playouts, win rate " + (winPerMille / 10) + "%";
+        listener.analysisUpdated(new AnalysisInfo(lineLength, active.move[best], winPerMille,
+                Arrays.copyOf(line, lineLength), moves, visits, active.visits.get(0), summary));
+    }
+
+    // pick the child that was explored the most
+    private int mostVisitedChild(int node) {
+        if (active.state.get(node) != EXPANDED) return -1;
+        int best = -1, bestVisits = -1;
+        int first = active.firstChild[node];
+        for (int i = 0; i < active.childCount[node]; i++) {
+            int visits = active.visits.get(first + i);
+            if (visits > bestVisits) {
+                bestVisits = visits;
+                best = first + i;
+            }
+        }
+        return best;
+    }
+
+    // find immediate winning move
+    private int[] findInstantWin(int[][] board, int player) {
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            for (int col = 0; col < BOARD_SIZE; col++) {
+                if (board[row][col] == EMPTY) {
+                    board[row][col] = player;
+                    boolean wins = GomokuBot.checkWinAt(board, row, col, player);
+                    board[row][col] = EMPTY;
+                    if (wins) return new int[]{row, col};
+                }
+            }
+        }
+        return null;
+    }
+
+    // fallback move if the tree never expanded
+    private int[] getBackupMove(int[][] board) {
+        int bestRow = BOARD_SIZE / 2, bestCol = BOARD_SIZE / 2, bestScore = -1;
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            for (int col = 0; col < BOARD_SIZE; col++) {
+                if (board[row][col] != EMPTY) continue;
+                int score = GomokuBot.scoreMoveFor(board, row, col, BOT);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestRow = row;
+                    bestCol = col;
+                }
+            }
+        }
+        return new int[]{bestRow, bestCol};
+    }
+
+    // make copy of board
+    private static int[][] makeBoardCopy(int[][] original) {
+        int[][] copy = new int[BOARD_SIZE][BOARD_SIZE];
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            System.arraycopy(original[i], 0, copy[i], 0, BOARD_SIZE);
+        }
+        return copy;
+    }
+
+    // one search thread, owns its scratch board and path so playouts don't allocate
+    private class SearchWorker {
+        private final int[][] startBoard;
+        private final int[][] board = new int[BOARD_SIZE][BOARD_SIZE];
+        private final int[] path = new int[BOARD_SIZE * BOARD_SIZE + 1];
+        private final int[] candMoves = new int[BOARD_SIZE * BOARD_SIZE];
+        private final int[] candScores = new int[BOARD_SIZE * BOARD_SIZE];
+        private final ThreadLocalRandom rng = ThreadLocalRandom.current();
+
+        SearchWorker(int[][] startBoard) {
+            this.startBoard = startBoard;
+        }
+
+        // selection, expansion, rollout and backup for one playout
+        void runPlayout() {
+            NodePool pool = active;
+            for (int i = 0; i < BOARD_SIZE; i++) {
+                System.arraycopy(startBoard[i], 0, board[i], 0, BOARD_SIZE);
+            }
+
+            int node = 0;
+            int pathLength = 0;
+            int player = BOT;
+            int winner = EMPTY;
+            int lastMove = -1, prevMove = -1;
+            path[pathLength++] = node;
+            pool.visits.incrementAndGet(node);
+
+            while (true) {
+                if (pool.state.get(node) != EXPANDED) {
+                    if (poolFull || !pool.state.compareAndSet(node, LEAF, EXPANDING)) break;
+                    expand(pool, node, player);
+                    if (pool.state.get(node) != EXPANDED) break;
+                }
+
+                int child = selectChild(pool, node);
+                if (child < 0) break;
+
+                // counting the visit now acts as a virtual loss for other threads
+                pool.visits.incrementAndGet(child);
+                path[pathLength++] = child;
+                int move = pool.move[child];
+                int row = move / BOARD_SIZE, col = move % BOARD_SIZE;
+                board[row][col] = player;
+                prevMove = lastMove;
+                lastMove = move;
+                node = child;
+
+                if (GomokuBot.checkWinAt(board, row, col, player)) {
+                    winner = player;
+                    break;
+                }
+                player = player == BOT ? HUMAN : BOT;
+            }
+
+            if (winner == EMPTY) {
+                winner = rollout(player, lastMove, prevMove);
+            }
+
+            // node at odd depth was reached by a bot move
+            for (int i = 1; i < pathLength; i++) {
+                int mover = (i & 1) == 1 ? BOT : HUMAN;
+                int points = winner == EMPTY ? DRAW_POINTS : (winner == mover ? WIN_POINTS : 0);
+                if (points > 0) pool.wins.addAndGet(path[i], points);
+            }
+        }
+
+        // UCT selection, unvisited children go first in pattern score order
+        private int selectChild(NodePool pool, int node) {
+            int count = pool.childCount[node];
+            if (count == 0) return -1;
+            int first = pool.firstChild[node];
+            double logParent = Math.log(Math.max(1, pool.visits.get(node)));
+            int best = -1;
+            double bestValue = -1;
+            for (int i = 0; i < count; i++) {
+                int child = first + i;
+                int visits = pool.visits.get(child);
+                if (visits == 0) return child;
+                double value = pool.wins.get(child) / (2.0 * visits)
+                        + EXPLORATION * Math.sqrt(logParent / visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        // add the best scoring candidate moves as children
+        private void expand(NodePool pool, int node, int player) {
+            int count = collectCandidates(player, MAX_CHILDREN);
+            int first = pool.nextFree.getAndAdd(count);
+            if (first + count > pool.capacity) {
+                poolFull = true;
+                pool.state.set(node, LEAF);
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                pool.initNode(first + i, candMoves[i]);
+            }
+            pool.firstChild[node] = first;
+            pool.childCount[node] = count;
+            pool.state.set(node, EXPANDED);
+        }
+
+        // empty spots near stones sorted by pattern score, keeps the top few
+        private int collectCandidates(int player, int limit) {
+            int count = 0;
+            boolean anyStone = false;
+            for (int row = 0; row < BOARD_SIZE; row++) {
+                for (int col = 0; col < BOARD_SIZE; col++) {
+                    if (board[row][col] != EMPTY) {
+                        anyStone = true;
+                        continue;
+                    }
+                    if (!hasNeighbor(row, col)) continue;
+                    int score = GomokuBot.scoreMoveFor(board, row, col, player);
+
+                    // insertion into the sorted top list
+                    int pos = Math.min(count, limit);
+                    while (pos > 0 && candScores[pos - 1] < score) {
+                        if (pos < limit) {
+                            candScores[pos] = candScores[pos - 1];
+                            candMoves[pos] = candMoves[pos - 1];
+                        }
+                        pos--;
+                    }
+                    if (pos < limit) {
+                        candScores[pos] = score;
+                        candMoves[pos] = row * BOARD_SIZE + col;
+                        if (count < limit) count++;
+                    }
+                }
+            }
+            if (!anyStone) {
+                int center = BOARD_SIZE / 2;
+                candMoves[0] = center * BOARD_SIZE + center;
+                return 1;
+            }
+            return count;
+        }
+
+        // check 2-step radius for existing stones
+        private boolean hasNeighbor(int row, int col) {
+            for (int r = Math.max(0, row - 2); r <= Math.min(BOARD_SIZE - 1, row + 2); r++) {
+                for (int c = Math.max(0, col - 2); c <= Math.min(BOARD_SIZE - 1, col + 2); c++) {
+                    if (board[r][c] != EMPTY) return true;
+                }
+            }
+            return false;
+        }
+
+        // play out the game with pattern guided moves near the last two moves
+        private int rollout(int player, int lastMove, int prevMove) {
+            for (int ply = 0; ply < ROLLOUT_LIMIT; ply++) {
+                int move = pickRolloutMove(player, lastMove, prevMove);
+                if (move < 0) return EMPTY;
+                int row = move / BOARD_SIZE, col = move % BOARD_SIZE;
+                board[row][col] = player;
+                if (GomokuBot.checkWinAt(board, row, col, player)) return player;
+                prevMove = lastMove;
+                lastMove = move;
+                player = player == BOT ? HUMAN : BOT;
+            }
+            return EMPTY;
+        }
+
+        // highest pattern score plus a bit of noise so playouts differ
+        private int pickRolloutMove(int player, int lastMove, int prevMove) {
+            int best = -1, bestScore = -1;
+            for (int k = 0; k < 2; k++) {
+                int around = k == 0 ? lastMove : prevMove;
+                if (around < 0) continue;
+                int centerRow = around / BOARD_SIZE, centerCol = around % BOARD_SIZE;
+                for (int r = Math.max(0, centerRow - 2); r <= Math.min(BOARD_SIZE - 1, centerRow + 2); r++) {
+                    for (int c = Math.max(0, centerCol - 2); c <= Math.min(BOARD_SIZE - 1, centerCol + 2); c++) {
+                        if (board[r][c] != EMPTY) continue;
+                        int score = GomokuBot.scoreMoveFor(board, r, c, player) + rng.nextInt(ROLLOUT_NOISE);
+                        if (score > bestScore) {
+                            bestScore = score;
+                            best = r * BOARD_SIZE + c;
+                        }
+                    }
+                }
+            }
+            if (best >= 0) return best;
+
+            // nothing free near the last moves, take any spot next to a stone
+            return collectCandidates(player, 1) > 0 ? candMoves[0] : -1;
+        }
+    }
+
+    // tree nodes stored as parallel arrays so they are allocated once and reused
+    private static class NodePool {
+        final int capacity;
+        final int[] move;
+        final int[] firstChild;
+        final int[] childCount;
+        final AtomicIntegerArray visits;
+        final AtomicIntegerArray wins;
+        final AtomicIntegerArray state;
+        final AtomicInteger nextFree = new AtomicInteger();
+
+        NodePool(int capacity) {
+            this.capacity = capacity;
+            this.move = new int[capacity];
+            this.firstChild = new int[capacity];
+            this.childCount = new int[capacity];
+            this.visits = new AtomicIntegerArray(capacity);
+            this.wins = new AtomicIntegerArray(capacity);
+            this.state = new AtomicIntegerArray(capacity);
+        }
+
+        // drop everything and start with an empty root
+        void reset() {
+            initNode(0, -1);
+            nextFree.set(1);
+        }
+
+        void initNode(int index, int nodeMove) {
+            move[index] = nodeMove;
+            firstChild[index] = 0;
+            childCount[index] = 0;
+            visits.set(index, 0);
+            wins.set(index, 0);
+            state.set(index, LEAF);
+        }
+
+        // copy stats of one node from another pool, children are fixed up by the caller
+        void copyNode(NodePool from, int fromIndex, int toIndex) {
+            move[toIndex] = from.move[fromIndex];
+            firstChild[toIndex] = 0;
+            childCount[toIndex] = 0;
+            visits.set(toIndex, from.visits.get(fromIndex));
+            wins.set(toIndex, from.wins.get(fromIndex));
+            state.set(toIndex, from.state.get(fromIndex));
+        }
+    }
+}
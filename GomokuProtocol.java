@@ -0,0 +1,78 @@
+// binary protocol between GomokuServer and GomokuClient
+// every message is one type byte followed by a fixed number of payload bytes,
+// so there is no length prefix and a move is just two bytes on the wire
+public final class GomokuProtocol {
+    public static final int DEFAULT_PORT = 5055;
+    public static final int BOARD_SIZE = 15;
+    public static final int TURN_TIME_SECONDS = 60;
+
+    // client to server
+    public static final byte JOIN_HUMAN = 0x01;  // wait for another player
+    public static final byte JOIN_BOT = 0x02;    // play black against a server bot
+    public static final byte MOVE = 0x03;        // cell
+    public static final byte RESIGN = 0x04;
+
+    // server to client
+    public static final byte WAITING = 0x10;     // queued for an opponent
+    public static final byte GAME_START = 0x11;  // your color, seconds per turn
+    public static final byte MOVE_MADE = 0x12;   // color, cell
+    public static final byte GAME_OVER = 0x13;   // winner color (0 for draw), reason
+    public static final byte ERROR = 0x14;       // error code
+
+    // colors
+    public static final byte BLACK = 1;
+    public static final byte WHITE = 2;
+
+    // game over reasons
+    public static final byte END_FIVE = 0;
+    public static final byte END_TIMEOUT = 1;
+    public static final byte END_RESIGN = 2;
+    public static final byte END_DISCONNECT = 3;
+    public static final byte END_DRAW = 4;
+
+    // error codes
+    public static final byte ERR_NOT_IN_GAME = 1;
+    public static final byte ERR_NOT_YOUR_TURN = 2;
+    public static final byte ERR_ILLEGAL_MOVE = 3;
+    public static final byte ERR_ALREADY_JOINED = 4;
+    public static final byte ERR_UNKNOWN_MESSAGE = 5;
+
+    private GomokuProtocol() {
+    }
+
+    // payload bytes after the type byte, -1 for an unknown type
+    public static int payloadLength(byte type) {
+        switch (type) {
+            case JOIN_HUMAN:
+            case JOIN_BOT:
+            case RESIGN:
+            case WAITING:
+                return 0;
+            case MOVE:
+            case ERROR:
+                return 1;
+            case GAME_START:
+            case MOVE_MADE:
+            case GAME_OVER:
+                return 2;
+            default:
+                return -1;
+        }
+    }
+
+    public static int cell(int row, int col) {
+        return row * BOARD_SIZE + col;
+    }
+
+    // readable text for the end of a game
+    public static String reasonText(int reason) {
+        switch (reason) {
+            case END_FIVE: return "five in a row";
+            case END_TIMEOUT: return "time ran out";
+            case END_RESIGN: return "resigned";
+            case END_DISCONNECT: return "opponent left";
+            case END_DRAW: return "board is full";
+            default: return "game over";
+        }
+    }
+}
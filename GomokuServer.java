@@ -0,0 +1,408 @@
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// game server for remote 1v1 and bot games, one selector thread handles every connection
+// usage: java GomokuServer [port]
+public class GomokuServer {
+    private static final int BOARD_SIZE = GomokuProtocol.BOARD_SIZE;
+    private static final int CELLS = BOARD_SIZE * BOARD_SIZE;
+    private static final long TURN_NANOS = GomokuProtocol.TURN_TIME_SECONDS * 1000000000L;
+    private static final long TICK_MILLIS = 200;
+    private static final long BOT_TIME_BUDGET = 1000;
+    private static final String BOT_TENANT = "server-bot";
+    private static final long USAGE_REPORT_NANOS = 60 * 1000000000L;
+
+    // messages are at most 3 bytes, so tiny buffers keep idle connections cheap
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int WRITE_BUFFER_SIZE = 16;
+    // a client that stops reading gets cut off before its replies pile up
+    private static final int MAX_WRITE_BUFFER = 4096;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private volatile boolean running = true;
+
+    // bot seats search through the scheduler so busy games can't starve each other,
+    // results come back to the selector thread through a queue
+    private final EngineScheduler botScheduler;
+    private final ConcurrentLinkedQueue<BotResult> botResults = new ConcurrentLinkedQueue<>();
+    private long botMovesRequested;
+    private long botMovesReported;
+    private long lastUsageReport = System.nanoTime();
+
+    // only touched on the selector thread
+    private final List<Game> activeGames = new ArrayList<>();
+    private final List<Game> expiredGames = new ArrayList<>();
+    private Connection waitingPlayer;
+
+    public GomokuServer(int port) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        botScheduler = new EngineScheduler();
+        botScheduler.addTenant(BOT_TENANT, 0, BOT_TIME_BUDGET);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : GomokuProtocol.DEFAULT_PORT;
+        GomokuServer server = new GomokuServer(port);
+        System.out.println("Gomoku server listening on port " + server.getPort());
+        server.run();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    // shut down from any thread
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    // event loop: network events, finished bot moves, then clocks
+    public void run() throws IOException {
+        try {
+            while (running) {
+                selector.select(TICK_MILLIS);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection conn = (Connection) key.attachment();
+                    if (key.isReadable()) read(conn);
+                    if (key.isValid() && key.isWritable()) flush(conn);
+                }
+                applyBotResults();
+                checkClocks();
+                reportUsage();
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+            botScheduler.shutdown();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection conn = new Connection(channel);
+            conn.key = channel.register(selector, SelectionKey.OP_READ, conn);
+        }
+    }
+
+    // read what's there and handle every complete message
+    private void read(Connection conn) {
+        int count;
+        try {
+            count = conn.channel.read(conn.in);
+        } catch (IOException e) {
+            count = -1;
+        }
+        if (count < 0) {
+            disconnect(conn);
+            return;
+        }
+
+        conn.in.flip();
+        while (conn.in.hasRemaining()) {
+            byte type = conn.in.get(conn.in.position());
+            int length = GomokuProtocol.payloadLength(type);
+            if (length < 0) {
+                send(conn, GomokuProtocol.ERROR, GomokuProtocol.ERR_UNKNOWN_MESSAGE);
+                disconnect(conn);
+                return;
+            }
+            if (conn.in.remaining() < 1 + length) break;
+            conn.in.get();
+            int payload = length > 0 ? conn.in.get() & 0xFF : 0;
+            handleMessage(conn, type, payload);
+            if (!conn.channel.isOpen()) return;
+        }
+        conn.in.compact();
+    }
+
+    private void handleMessage(Connection conn, byte type, int payload) {
+        switch (type) {
+            case GomokuProtocol.JOIN_HUMAN:
+                if (conn.game != null || conn == waitingPlayer) {
+                    send(conn, GomokuProtocol.ERROR, GomokuProtocol.ERR_ALREADY_JOINED);
+                } else if (waitingPlayer == null) {
+                    waitingPlayer = conn;
+                    send(conn, GomokuProtocol.WAITING);
+                } else {
+                    Connection black = waitingPlayer;
+                    waitingPlayer = null;
+                    startGame(black, conn);
+                }
+                break;
+            case GomokuProtocol.JOIN_BOT:
+                if (conn.game != null || conn == waitingPlayer) {
+                    send(conn, GomokuProtocol.ERROR, GomokuProtocol.ERR_ALREADY_JOINED);
+                } else {
+                    // human plays black, bot seat is white like in the local game
+                    startGame(conn, null);
+                }
+                break;
+            case GomokuProtocol.MOVE:
+                handleMove(conn, payload);
+                break;
+            case GomokuProtocol.RESIGN:
+                if (conn.game == null) {
+                    send(conn, GomokuProtocol.ERROR, GomokuProtocol.ERR_NOT_IN_GAME);
+                } else {
+                    endGame(conn.game, other(conn.color), GomokuProtocol.END_RESIGN);
+                }
+                break;
+            default:
+                send(conn, GomokuProtocol.ERROR, GomokuProtocol.ERR_UNKNOWN_MESSAGE);
+        }
+    }
+
+    private void startGame(Connection black, Connection white) {
+        Game game = new Game(black, white);
+        black.game = game;
+        black.color = GomokuProtocol.BLACK;
+        if (white != null) {
+            white.game = game;
+            white.color = GomokuProtocol.WHITE;
+        }
+        game.deadline = System.nanoTime() + TURN_NANOS;
+        activeGames.add(game);
+
+        // a failed send disconnects and ends the game, so don't announce it after that
+        send(black, GomokuProtocol.GAME_START, GomokuProtocol.BLACK, GomokuProtocol.TURN_TIME_SECONDS);
+        if (white != null && !game.over) {
+            send(white, GomokuProtocol.GAME_START, GomokuProtocol.WHITE, GomokuProtocol.TURN_TIME_SECONDS);
+        }
+    }
+
+    // the server is the referee, clients only propose moves
+    private void handleMove(Connection conn, int cell) {
+        Game game = conn.game;
+        if (game == null) {
+            send(conn, GomokuProtocol.ERROR, GomokuProtocol.ERR_NOT_IN_GAME);
+        } else if (game.toMove != conn.color) {
+            send(conn, GomokuProtocol.ERROR, GomokuProtocol.ERR_NOT_YOUR_TURN);
+        } else if (cell >= CELLS || game.board[cell] != 0) {
+            send(conn, GomokuProtocol.ERROR, GomokuProtocol.ERR_ILLEGAL_MOVE);
+        } else {
+            applyMove(game, conn.color, cell);
+        }
+    }
+
+    private void applyMove(Game game, byte color, int cell) {
+        game.board[cell] = color;
+        game.moves++;
+        broadcast(game, GomokuProtocol.MOVE_MADE, color, cell);
+        // a failed send disconnects that player, which already ended the game
+        if (game.over) return;
+
+        if (GomokuBot.checkWinAt(unpack(game.board), cell / BOARD_SIZE, cell % BOARD_SIZE, color)) {
+            endGame(game, color, GomokuProtocol.END_FIVE);
+        } else if (game.moves == CELLS) {
+            endGame(game, 0, GomokuProtocol.END_DRAW);
+        } else {
+            game.toMove = other(color);
+            game.deadline = System.nanoTime() + TURN_NANOS;
+            if (game.seat(game.toMove) == null) {
+                requestBotMove(game);
+            }
+        }
+    }
+
+    // search on a worker thread
+    private void requestBotMove(Game game) {
+        byte botColor = game.toMove;
+        int[][] board = GomokuBot.boardForEngine(unpack(game.board), botColor);
+        // answer well before the turn clock, the cpu quota keeps one sharp position from hogging the cores
+        long turnLeftMillis = (game.deadline - System.nanoTime()) / 1000000;
+        long deadline = System.currentTimeMillis() + Math.min(BOT_TIME_BUDGET * 2, turnLeftMillis - TICK_MILLIS);
+        botMovesRequested++;
+        botScheduler.submit(BOT_TENANT, board, deadline).thenAccept(move -> {
+            botResults.add(new BotResult(game, botColor, GomokuProtocol.cell(move[0], move[1])));
+            selector.wakeup();
+        });
+    }
+
+    private void applyBotResults() {
+        BotResult result;
+        while ((result = botResults.poll()) != null) {
+            Game game = result.game;
+            if (!game.over && game.toMove == result.color && game.board[result.cell] == 0) {
+                applyMove(game, result.color, result.cell);
+            }
+        }
+    }
+
+    // whoever is to move when their clock runs out loses
+    private void checkClocks() {
+        long now = System.nanoTime();
+        for (Game game : activeGames) {
+            if (now - game.deadline > 0) expiredGames.add(game);
+        }
+        for (Game game : expiredGames) {
+            endGame(game, other(game.toMove), GomokuProtocol.END_TIMEOUT);
+        }
+        expiredGames.clear();
+    }
+
+    // print bot cpu usage now and then while bots are playing
+    private void reportUsage() {
+        long now = System.nanoTime();
+        if (now - lastUsageReport < USAGE_REPORT_NANOS) return;
+        lastUsageReport = now;
+        if (botMovesRequested == botMovesReported) return;
+        botMovesReported = botMovesRequested;
+        System.out.print(botScheduler.report());
+    }
+
+    private void endGame(Game game, int winner, byte reason) {
+        if (game.over) return;
+        game.over = true;
+        broadcast(game, GomokuProtocol.GAME_OVER, winner, reason);
+        if (game.black != null) game.black.game = null;
+        if (game.white != null) game.white.game = null;
+        activeGames.remove(game);
+    }
+
+    private void disconnect(Connection conn) {
+        if (!conn.channel.isOpen()) return;
+        if (waitingPlayer == conn) waitingPlayer = null;
+        if (conn.game != null) {
+            Game game = conn.game;
+            // the leaver's seat is gone, the other side wins
+            if (game.black == conn) game.black = null;
+            else game.white = null;
+            endGame(game, other(conn.color), GomokuProtocol.END_DISCONNECT);
+        }
+        conn.key.cancel();
+        try {
+            conn.channel.close();
+        } catch (IOException e) {
+            // already closed
+        }
+    }
+
+    private void broadcast(Game game, byte type, int a, int b) {
+        if (game.black != null) send(game.black, type, a, b);
+        if (game.white != null) send(game.white, type, a, b);
+    }
+
+    private void send(Connection conn, byte type) {
+        if (conn.queue(type)) flush(conn);
+        else disconnect(conn);
+    }
+
+    private void send(Connection conn, byte type, int a) {
+        if (conn.queue(type, (byte) a)) flush(conn);
+        else disconnect(conn);
+    }
+
+    private void send(Connection conn, byte type, int a, int b) {
+        if (conn.queue(type, (byte) a, (byte) b)) flush(conn);
+        else disconnect(conn);
+    }
+
+    // write as much as the socket takes, wait for OP_WRITE for the rest
+    private void flush(Connection conn) {
+        if (!conn.channel.isOpen()) return;
+        try {
+            conn.out.flip();
+            conn.channel.write(conn.out);
+            boolean pending = conn.out.hasRemaining();
+            conn.out.compact();
+            conn.key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        } catch (IOException | CancelledKeyException e) {
+            disconnect(conn);
+        }
+    }
+
+    private static byte other(int color) {
+        return color == GomokuProtocol.BLACK ? GomokuProtocol.WHITE : GomokuProtocol.BLACK;
+    }
+
+    // games keep a byte per cell, the bot code wants rows and columns
+    private static int[][] unpack(byte[] board) {
+        int[][] rows = new int[BOARD_SIZE][BOARD_SIZE];
+        for (int i = 0; i < CELLS; i++) {
+            rows[i / BOARD_SIZE][i % BOARD_SIZE] = board[i];
+        }
+        return rows;
+    }
+
+    // one client socket
+    private static class Connection {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        SelectionKey key;
+        Game game;
+        byte color;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        // append to the write buffer, growing it if a slow reader lets it fill up,
+        // false once it would pass MAX_WRITE_BUFFER
+        boolean queue(byte... bytes) {
+            if (out.remaining() < bytes.length) {
+                if (out.position() + bytes.length > MAX_WRITE_BUFFER) return false;
+                ByteBuffer bigger = ByteBuffer.allocate(Math.min(MAX_WRITE_BUFFER, out.capacity() * 2 + bytes.length));
+                out.flip();
+                bigger.put(out);
+                out = bigger;
+            }
+            out.put(bytes);
+            return true;
+        }
+    }
+
+    // one game, a null seat is played by the server bot
+    private static class Game {
+        final byte[] board = new byte[CELLS];
+        Connection black, white;
+        byte toMove = GomokuProtocol.BLACK;
+        int moves;
+        long deadline;
+        boolean over;
+
+        Game(Connection black, Connection white) {
+            this.black = black;
+            this.white = white;
+        }
+
+        Connection seat(byte color) {
+            return color == GomokuProtocol.BLACK ? black : white;
+        }
+    }
+
+    private static class BotResult {
+        final Game game;
+        final byte color;
+        final int cell;
+
+        BotResult(Game game, byte color, int cell) {
+            this.game = game;
+            this.color = color;
+            this.cell = cell;
+        }
+    }
+}
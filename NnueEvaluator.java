@@ -0,0 +1,132 @@
+import java.io.*;
+
+// small neural network evaluator with an incrementally updated accumulator
+// input: one feature per (color, cell), hidden: clipped relu, output: one score
+public class NnueEvaluator {
+    static final int BOARD_SIZE = 15;
+    static final int CELLS = BOARD_SIZE * BOARD_SIZE;
+    static final int FEATURES = CELLS * 2;
+    static final int HIDDEN = 64;
+
+    // quantization: hidden activations live in [0, QA], output weights are scaled by QB
+    static final int QA = 127;
+    static final int QB = 64;
+
+    // network output is a win logit, scale it into the hand eval's point range
+    static final int EVAL_SCALE = 1000;
+
+    private static final int MAGIC = 0x474E4E55; // "GNNU"
+    private static final int VERSION = 1;
+
+    // weights are stored feature major so one stone touches one contiguous block
+    private final short[] featureWeights;
+    private final short[] hiddenBias;
+    private final byte[] outputWeights;
+    private final int outputBias;
+
+    private final short[] accumulator = new short[HIDDEN];
+
+    NnueEvaluator(short[] featureWeights, short[] hiddenBias, byte[] outputWeights, int outputBias) {
+        if (featureWeights.length != FEATURES * HIDDEN || hiddenBias.length != HIDDEN || outputWeights.length != HIDDEN) {
+            throw new IllegalArgumentException("weight arrays don't match the network size");
+        }
+        this.featureWeights = featureWeights;
+        this.hiddenBias = hiddenBias;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    // copy with its own accumulator, so each search thread can have one
+    public NnueEvaluator copy() {
+        return new NnueEvaluator(featureWeights, hiddenBias, outputWeights, outputBias);
+    }
+
+    // feature index for a stone (player is 1 or 2)
+    static int featureIndex(int row, int col, int player) {
+        return (player - 1) * CELLS + row * BOARD_SIZE + col;
+    }
+
+    // rebuild the accumulator from scratch
+    public void reset(int[][] board) {
+        System.arraycopy(hiddenBias, 0, accumulator, 0, HIDDEN);
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            for (int col = 0; col < BOARD_SIZE; col++) {
+                if (board[row][col] != 0) {
+                    addStone(row, col, board[row][col]);
+                }
+            }
+        }
+    }
+
+    // stone placed, add its weight column
+    public void addStone(int row, int col, int player) {
+        int base = featureIndex(row, col, player) * HIDDEN;
+        short[] acc = accumulator;
+        short[] w = featureWeights;
+        for (int i = 0; i < HIDDEN; i++) {
+            acc[i] += w[base + i];
+        }
+    }
+
+    // stone taken back, subtract its weight column
+    public void removeStone(int row, int col, int player) {
+        int base = featureIndex(row, col, player) * HIDDEN;
+        short[] acc = accumulator;
+        short[] w = featureWeights;
+        for (int i = 0; i < HIDDEN; i++) {
+            acc[i] -= w[base + i];
+        }
+    }
+
+    // score from the bot's (white) point of view, same sign as evaluateBoard
+    public int evaluate() {
+        int sum = 0;
+        short[] acc = accumulator;
+        byte[] w = outputWeights;
+        for (int i = 0; i < HIDDEN; i++) {
+            int h = acc[i];
+            if (h < 0) h = 0;
+            else if (h > QA) h = QA;
+            sum += h * w[i];
+        }
+        sum += outputBias;
+        return (int) ((long) sum * EVAL_SCALE / (QA * QB));
+    }
+
+    // load weights written by save()
+    public static NnueEvaluator load(String path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (in.readInt() != MAGIC) throw new IOException("not a Gomoku network file: " + path);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("unsupported network version " + version);
+            int features = in.readInt();
+            int hidden = in.readInt();
+            if (features != FEATURES || hidden != HIDDEN) {
+                throw new IOException("network size " + features + "x" + hidden + " doesn't match " + FEATURES + "x" + HIDDEN);
+            }
+
+            short[] featureWeights = new short[FEATURES * HIDDEN];
+            for (int i = 0; i < featureWeights.length; i++) featureWeights[i] = in.readShort();
+            short[] hiddenBias = new short[HIDDEN];
+            for (int i = 0; i < HIDDEN; i++) hiddenBias[i] = in.readShort();
+            byte[] outputWeights = new byte[HIDDEN];
+            in.readFully(outputWeights);
+            int outputBias = in.readInt();
+            return new NnueEvaluator(featureWeights, hiddenBias, outputWeights, outputBias);
+        }
+    }
+
+    // write weights in the format load() reads
+    public void save(String path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(FEATURES);
+            out.writeInt(HIDDEN);
+            for (short w : featureWeights) out.writeShort(w);
+            for (short b : hiddenBias) out.writeShort(b);
+            out.write(outputWeights);
+            out.writeInt(outputBias);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+import java.io.*;
+import java.util.*;
+
+// makes self-play data and trains the neural evaluator on it
+// usage:
+//   java NnueTrainer selfplay <games> <data file> [millisPerMove]
+//   java NnueTrainer train <data file> <weights file> [epochs]
+//   java NnueTrainer bench <weights file>
+public class NnueTrainer {
+    private static final int BOARD_SIZE = NnueEvaluator.BOARD_SIZE;
+    private static final int CELLS = NnueEvaluator.CELLS;
+    private static final int FEATURES = NnueEvaluator.FEATURES;
+    private static final int HIDDEN = NnueEvaluator.HIDDEN;
+    private static final int EMPTY = 0;
+
+    // training settings
+    private static final double LEARNING_RATE = 0.01;
+    private static final double WEIGHT_LIMIT = 1.0;
+    private static final int RANDOM_OPENING_MOVES = 4;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("usage: java NnueTrainer selfplay <games> <data> [millis] | train <data> <weights> [epochs] | bench <weights>");
+            return;
+        }
+        switch (args[0]) {
+            case "selfplay":
+                selfPlay(Integer.parseInt(args[1]), args[2], args.length > 3 ? Long.parseLong(args[3]) : 100);
+                break;
+            case "train":
+                train(args[1], args[2], args.length > 3 ? Integer.parseInt(args[3]) : 10);
+                break;
+            case "bench":
+                bench(NnueEvaluator.load(args[1]));
+                break;
+            default:
+                System.out.println("unknown mode: " + args[0]);
+        }
+    }
+
+    // play the alpha-beta bot against itself and write every position with the final result
+    // line format: 225 digits (row by row, 0 empty, 1 black, 2 white), a space, then the winner (0 for draw)
+    private static void selfPlay(int games, String dataPath, long millis) throws IOException {
+        GomokuBot bot = new GomokuBot();
+        bot.setTimeBudget(millis);
+        Random rng = new Random();
+
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(dataPath, true)))) {
+            for (int game = 0; game < games; game++) {
+                int[][] board = new int[BOARD_SIZE][BOARD_SIZE];
+                List<String> positions = new ArrayList<>();
+                int player = 1;
+                int winner = EMPTY;
+
+                for (int ply = 0; ply < CELLS; ply++) {
+                    int[] move;
+                    if (ply < RANDOM_OPENING_MOVES) {
+                        // random opening near the center so games don't repeat
+                        int center = BOARD_SIZE / 2;
+                        do {
+                            move = new int[]{center - 3 + rng.nextInt(7), center - 3 + rng.nextInt(7)};
+                        } while (board[move[0]][move[1]] != EMPTY);
+                    } else {
+                        move = bot.findBestMove(GomokuBot.boardForEngine(board, player));
+                    }
+                    board[move[0]][move[1]] = player;
+                    positions.add(boardToString(board));
+                    if (GomokuBot.checkWinAt(board, move[0], move[1], player)) {
+                        winner = player;
+                        break;
+                    }
+                    player = player == 1 ? 2 : 1;
+                }
+
+                for (String position : positions) {
+                    out.println(position + " " + winner);
+                }
+                System.out.println("game " + (game + 1) + ": " + (winner == EMPTY ? "draw" : (winner == 1 ? "black" : "white") + " wins")
+                        + ", " + positions.size() + " positions");
+            }
+        }
+    }
+
+    // train a float network with SGD, then quantize it into a weight file
+    private static void train(String dataPath, String weightsPath, int epochs) throws IOException {
+        List<int[]> positions = new ArrayList<>();
+        List<Double> targets = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new FileReader(dataPath))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.length() < CELLS + 2) continue;
+                int[] cells = new int[CELLS];
+                for (int i = 0; i < CELLS; i++) cells[i] = line.charAt(i) - '0';
+                int winner = line.charAt(CELLS + 1) - '0';
+
+                // target is the chance that white (the bot) wins
+                double target = winner == 2 ? 1.0 : (winner == 1 ? 0.0 : 0.5);
+
+                // all 8 board symmetries are the same position
+                for (int sym = 0; sym < 8; sym++) {
+                    positions.add(activeFeatures(cells, sym));
+                    targets.add(target);
+                }
+            }
+        }
+        if (positions.isEmpty()) {
+            System.out.println("no positions in " + dataPath);
+            return;
+        }
+        System.out.println("training on " + positions.size() + " positions (with symmetries)");
+
+        Random rng = new Random(1);
+        double[] w1 = new double[FEATURES * HIDDEN];
+        double[] b1 = new double[HIDDEN];
+        double[] w2 = new double[HIDDEN];
+        double[] b2 = new double[1];
+        for (int i = 0; i < w1.length; i++) w1[i] = rng.nextGaussian() * 0.05;
+        for (int i = 0; i < HIDDEN; i++) {
+            b1[i] = 0.5;
+            w2[i] = rng.nextGaussian() * 0.1;
+        }
+
+        Integer[] order = new Integer[positions.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        double[] acc = new double[HIDDEN];
+
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            Collections.shuffle(Arrays.asList(order), rng);
+            double totalLoss = 0;
+
+            for (int index : order) {
+                int[] active = positions.get(index);
+                double target = targets.get(index);
+
+                // forward pass
+                System.arraycopy(b1, 0, acc, 0, HIDDEN);
+                for (int f : active) {
+                    int base = f * HIDDEN;
+                    for (int i = 0; i < HIDDEN; i++) acc[i] += w1[base + i];
+                }
+                double out = b2[0];
+                for (int i = 0; i < HIDDEN; i++) out += clamp(acc[i], 0, 1) * w2[i];
+                double p = 1.0 / (1.0 + Math.exp(-out));
+                totalLoss += -(target * Math.log(p + 1e-9) + (1 - target) * Math.log(1 - p + 1e-9));
+
+                // backward pass, cross entropy gradient on the logit is p - target
+                double grad = p - target;
+                b2[0] -= LEARNING_RATE * grad;
+                for (int i = 0; i < HIDDEN; i++) {
+                    double h = clamp(acc[i], 0, 1);
+                    double hiddenGrad = (acc[i] > 0 && acc[i] < 1) ? grad * w2[i] : 0;
+                    w2[i] = clamp(w2[i] - LEARNING_RATE * grad * h, -127.0 / NnueEvaluator.QB, 127.0 / NnueEvaluator.QB);
+                    if (hiddenGrad == 0) continue;
+                    b1[i] = clamp(b1[i] - LEARNING_RATE * hiddenGrad, -WEIGHT_LIMIT, WEIGHT_LIMIT);
+                    for (int f : active) {
+                        int k = f * HIDDEN + i;
+                        w1[k] = clamp(w1[k] - LEARNING_RATE * hiddenGrad, -WEIGHT_LIMIT, WEIGHT_LIMIT);
+                    }
+                }
+            }
+            System.out.printf("epoch %d: loss %.4f%n", epoch + 1, totalLoss / order.length);
+        }
+
+        quantize(w1, b1, w2, b2[0]).save(weightsPath);
+        System.out.println("wrote " + weightsPath);
+    }
+
+    // feature indexes of the stones on a board, after applying one of the 8 symmetries
+    private static int[] activeFeatures(int[] cells, int sym) {
+        int count = 0;
+        for (int cell : cells) if (cell != EMPTY) count++;
+        int[] active = new int[count];
+        int n = 0;
+        for (int i = 0; i < CELLS; i++) {
+            if (cells[i] == EMPTY) continue;
+            int row = i / BOARD_SIZE, col = i % BOARD_SIZE;
+            if ((sym & 1) != 0) col = BOARD_SIZE - 1 - col;
+            if ((sym & 2) != 0) row = BOARD_SIZE - 1 - row;
+            if ((sym & 4) != 0) {
+                int temp = row;
+                row = col;
+                col = temp;
+            }
+            active[n++] = NnueEvaluator.featureIndex(row, col, cells[i]);
+        }
+        return active;
+    }
+
+    // turn float weights into the int16 / int8 network
+    private static NnueEvaluator quantize(double[] w1, double[] b1, double[] w2, double b2) {
+        short[] featureWeights = new short[w1.length];
+        for (int i = 0; i < w1.length; i++) featureWeights[i] = (short) Math.round(w1[i] * NnueEvaluator.QA);
+        short[] hiddenBias = new short[HIDDEN];
+        byte[] outputWeights = new byte[HIDDEN];
+        for (int i = 0; i < HIDDEN; i++) {
+            hiddenBias[i] = (short) Math.round(b1[i] * NnueEvaluator.QA);
+            outputWeights[i] = (byte) Math.round(clamp(w2[i] * NnueEvaluator.QB, -127, 127));
+        }
+        int outputBias = (int) Math.round(b2 * NnueEvaluator.QA * NnueEvaluator.QB);
+        return new NnueEvaluator(featureWeights, hiddenBias, outputWeights, outputBias);
+    }
+
+    // measure incremental update + evaluate speed on random make/unmake sequences
+    private static void bench(NnueEvaluator nnue) {
+        Random rng = new Random(1);
+        int[][] board = new int[BOARD_SIZE][BOARD_SIZE];
+        nnue.reset(board);
+        int[] moves = new int[4096];
+        for (int i = 0; i < moves.length; i++) moves[i] = rng.nextInt(CELLS);
+
+        long checksum = 0;
+        for (int round = 0; round < 2; round++) {
+            long evals = 0;
+            long start = System.nanoTime();
+            for (int iter = 0; iter < 5000; iter++) {
+                for (int i = 0; i < moves.length; i++) {
+                    int row = moves[i] / BOARD_SIZE, col = moves[i] % BOARD_SIZE;
+                    int player = 1 + (i & 1);
+                    nnue.addStone(row, col, player);
+                    checksum += nnue.evaluate();
+                    nnue.removeStone(row, col, player);
+                    evals++;
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%s: %.1f million make/eval/unmake per second%n", round == 0 ? "warmup" : "measured", evals / seconds / 1e6);
+        }
+        System.out.println("checksum " + checksum);
+    }
+
+    private static double clamp(double value, double low, double high) {
+        return Math.max(low, Math.min(high, value));
+    }
+
+    private static String boardToString(int[][] board) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                sb.append(board[i][j]);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,6 @@
+// called from inside a running search every few hundred nodes (each tree snapshot for MCTS),
+// on the thread that called findBestMove
+// may block to hand the core to another search, returning false stops the search with what it has
+public interface SearchCheckpoint {
+    boolean proceed(long nodes);
+}
@@ -0,0 +1,320 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// runs a file of tactical positions through an engine and checks for regressions
+// usage: java TacticalSuite [suite file] [options]
+//   --engine alphabeta|mcts   engine to test (default alphabeta)
+//   --millis N                time limit per position (default 2000)
+//   --nodes N                 node limit per position, 0 for none (default 0)
+//   --threads N               positions solved in parallel (default: all cores)
+//   --baseline FILE           results to compare against (default: suite file + .baseline),
+//                             only compared when it was written with the same engine and limits
+//   --write-baseline          store this run's results as the new baseline
+//
+// suite format, one block per position:
+//   position <name>
+//   15 rows of 15 characters: '.' empty, 'x' black, 'o' white
+//   best <moves>     solved if the engine plays any of these
+//   avoid <moves>    solved if the engine plays none of these
+//   end
+// moves are written like H8 (columns A-O from the left, rows 1-15 from the top),
+// the side to move is black when both colors have the same number of stones
+public class TacticalSuite {
+    private static final int BOARD_SIZE = 15;
+    private static final int EMPTY = 0;
+
+    // how much worse than the baseline a solved position may get before it counts as a regression
+    private static final double NODE_TOLERANCE = 0.25;
+    private static final double TIME_TOLERANCE = 0.5;
+    private static final long TIME_SLACK_MS = 50;
+
+    public static void main(String[] args) throws Exception {
+        String suitePath = "suites/tactics.txt";
+        String baselinePath = null;
+        String engineName = "alphabeta";
+        long millis = 2000;
+        long nodes = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean writeBaseline = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--engine": engineName = args[++i]; break;
+                case "--millis": millis = Long.parseLong(args[++i]); break;
+                case "--nodes": nodes = Long.parseLong(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--baseline": baselinePath = args[++i]; break;
+                case "--write-baseline": writeBaseline = true; break;
+                default: suitePath = args[i];
+            }
+        }
+        if (baselinePath == null) baselinePath = suitePath + ".baseline";
+
+        List<TestPosition> positions = readSuite(suitePath);
+        List<Result> results = runSuite(positions, engineName, millis, nodes, threads);
+
+        int solved = 0;
+        System.out.printf("%-28s %-7s %-5s %10s %12s%n", "position", "result", "move", "time ms", "nodes");
+        for (Result r : results) {
+            if (r.solved) solved++;
+            System.out.printf("%-28s %-7s %-5s %10s %12s%n", r.name, r.solved ? "ok" : "FAILED", GomokuBot.moveName(r.move),
+                    r.solved ? String.valueOf(r.timeMillis) : "-", r.solved ? String.valueOf(r.nodes) : "-");
+        }
+        String settings = settings(engineName, millis, nodes);
+        System.out.println("solved " + solved + "/" + results.size() + " with " + settings);
+
+        if (writeBaseline) {
+            writeBaseline(baselinePath, engineName, millis, nodes, results);
+            System.out.println("wrote baseline " + baselinePath);
+            return;
+        }
+
+        File baselineFile = new File(baselinePath);
+        if (!baselineFile.exists()) {
+            System.out.println("no baseline at " + baselinePath + ", run with --write-baseline to create one");
+            return;
+        }
+        Map<String, Result> baseline = new HashMap<>();
+        String baselineSettings = readBaseline(baselinePath, baseline);
+        if (!settings.equals(baselineSettings)) {
+            // times and nodes from another engine or limit say nothing about this run
+            System.out.println("baseline " + baselinePath + " was written with "
+                    + (baselineSettings == null ? "unknown settings" : baselineSettings)
+                    + ", not comparing. Use --baseline FILE to keep one per setup, or --write-baseline");
+            return;
+        }
+        List<String> regressions = compareToBaseline(baseline, results);
+        for (String regression : regressions) {
+            System.out.println("REGRESSION: " + regression);
+        }
+        if (!regressions.isEmpty()) {
+            System.exit(1);
+        }
+        System.out.println("no regressions against " + baselinePath);
+    }
+
+    // solve every position on its own engine so runs don't share caches or trees
+    private static List<Result> runSuite(List<TestPosition> positions, String engineName,
+                                         long millis, long nodes, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (TestPosition position : positions) {
+                futures.add(pool.submit(() -> solve(position, createEngine(engineName), millis, nodes)));
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> f : futures) {
+                results.add(f.get());
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static GomokuEngine createEngine(String name) {
+        switch (name) {
+            case "alphabeta": return new GomokuBot();
+            // one search thread per position, the suite itself runs positions in parallel
+            case "mcts": return new GomokuMctsBot(1);
+            default: throw new IllegalArgumentException("unknown engine: " + name);
+        }
+    }
+
+    // run one search, watching the streamed results to see when the answer was first found for good
+    private static Result solve(TestPosition position, GomokuEngine engine, long millis, long nodes) {
+        engine.setTimeBudget(millis);
+        engine.setNodeLimit(nodes);
+
+        List<long[]> updates = Collections.synchronizedList(new ArrayList<>());
+        long start = System.nanoTime();
+        engine.setAnalysisListener(info -> updates.add(new long[]{System.nanoTime() - start, info.nodes, info.bestMove}));
+
+        int[] move = engine.findBestMove(position.board);
+        long elapsed = System.nanoTime() - start;
+        engine.close();
+
+        Result result = new Result();
+        result.name = position.name;
+        result.move = move[0] * BOARD_SIZE + move[1];
+        result.solved = position.accepts(result.move);
+        if (!result.solved) return result;
+
+        // earliest update after which the best move never left the solution set
+        long solvedAt = elapsed;
+        long solvedNodes = updates.isEmpty() ? 0 : updates.get(updates.size() - 1)[1];
+        for (int i = updates.size() - 1; i >= 0; i--) {
+            long[] update = updates.get(i);
+            if (update[2] < 0 || !position.accepts((int) update[2])) break;
+            solvedAt = update[0];
+            solvedNodes = update[1];
+        }
+        result.timeMillis = solvedAt / 1000000;
+        result.nodes = solvedNodes;
+        return result;
+    }
+
+    private static List<TestPosition> readSuite(String path) throws IOException {
+        List<TestPosition> positions = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new FileReader(path))) {
+            TestPosition current = null;
+            int row = 0;
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                if (line.startsWith("position ")) {
+                    current = new TestPosition(line.substring(9).trim());
+                    row = 0;
+                } else if (current == null) {
+                    throw new IOException(path + ":" + lineNumber + ": expected 'position <name>'");
+                } else if (row < BOARD_SIZE) {
+                    if (line.length() != BOARD_SIZE) {
+                        throw new IOException(path + ":" + lineNumber + ": board rows need " + BOARD_SIZE + " characters");
+                    }
+                    for (int col = 0; col < BOARD_SIZE; col++) {
+                        char c = line.charAt(col);
+                        current.raw[row][col] = c == 'x' ? 1 : (c == 'o' ? 2 : EMPTY);
+                    }
+                    row++;
+                } else if (line.startsWith("best ")) {
+                    current.best.addAll(parseMoves(line.substring(5), path, lineNumber));
+                } else if (line.startsWith("avoid ")) {
+                    current.avoid.addAll(parseMoves(line.substring(6), path, lineNumber));
+                } else if (line.equals("end")) {
+                    current.prepare();
+                    positions.add(current);
+                    current = null;
+                } else {
+                    throw new IOException(path + ":" + lineNumber + ": can't read '" + line + "'");
+                }
+            }
+        }
+        return positions;
+    }
+
+    private static List<Integer> parseMoves(String text, String path, int lineNumber) throws IOException {
+        List<Integer> moves = new ArrayList<>();
+        for (String token : text.trim().split("\\s+")) {
+            int col = Character.toUpperCase(token.charAt(0)) - 'A';
+            int row;
+            try {
+                row = Integer.parseInt(token.substring(1)) - 1;
+            } catch (NumberFormatException e) {
+                throw new IOException(path + ":" + lineNumber + ": bad move '" + token + "'");
+            }
+            if (row < 0 || row >= BOARD_SIZE || col < 0 || col >= BOARD_SIZE) {
+                throw new IOException(path + ":" + lineNumber + ": move off the board '" + token + "'");
+            }
+            moves.add(row * BOARD_SIZE + col);
+        }
+        return moves;
+    }
+
+    private static String settings(String engineName, long millis, long nodes) {
+        return engineName + " (" + millis + "ms" + (nodes > 0 ? ", " + nodes + " nodes" : "") + " per position)";
+    }
+
+    // baseline format: a settings line (engine millis nodes), then <name> <solved 0/1> <time ms> <nodes>
+    private static void writeBaseline(String path, String engineName, long millis, long nodes,
+                                      List<Result> results) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(path))) {
+            out.println("settings " + engineName + " " + millis + " " + nodes);
+            out.println("# name solved timeMillis nodes");
+            for (Result r : results) {
+                out.println(r.name + " " + (r.solved ? 1 : 0) + " " + r.timeMillis + " " + r.nodes);
+            }
+        }
+    }
+
+    // fills in the results and returns the settings the baseline was written with (null if it has none)
+    private static String readBaseline(String path, Map<String, Result> baseline) throws IOException {
+        String settings = null;
+        try (BufferedReader in = new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split("\\s+");
+                if (parts[0].equals("settings")) {
+                    settings = settings(parts[1], Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+                    continue;
+                }
+                Result r = new Result();
+                r.name = parts[0];
+                r.solved = parts[1].equals("1");
+                r.timeMillis = Long.parseLong(parts[2]);
+                r.nodes = Long.parseLong(parts[3]);
+                baseline.put(r.name, r);
+            }
+        }
+        return settings;
+    }
+
+    private static List<String> compareToBaseline(Map<String, Result> baseline, List<Result> results) {
+        List<String> regressions = new ArrayList<>();
+        int solvedBefore = 0, solvedNow = 0;
+        for (Result r : results) {
+            if (r.solved) solvedNow++;
+            Result old = baseline.get(r.name);
+            if (old == null || !old.solved) continue;
+            solvedBefore++;
+
+            if (!r.solved) {
+                regressions.add(r.name + " was solved, now plays " + GomokuBot.moveName(r.move));
+                continue;
+            }
+            if (r.nodes > old.nodes * (1 + NODE_TOLERANCE) + 1) {
+                regressions.add(r.name + " needs " + r.nodes + " nodes, baseline " + old.nodes);
+            }
+            if (r.timeMillis > old.timeMillis * (1 + TIME_TOLERANCE) + TIME_SLACK_MS) {
+                regressions.add(r.name + " takes " + r.timeMillis + "ms, baseline " + old.timeMillis + "ms");
+            }
+        }
+        if (solvedNow < solvedBefore) {
+            regressions.add("solved count dropped from " + solvedBefore + " to " + solvedNow);
+        }
+        return regressions;
+    }
+
+    // one position from the suite file
+    private static class TestPosition {
+        final String name;
+        final int[][] raw = new int[BOARD_SIZE][BOARD_SIZE];
+        int[][] board;
+        final Set<Integer> best = new HashSet<>();
+        final Set<Integer> avoid = new HashSet<>();
+
+        TestPosition(String name) {
+            this.name = name;
+        }
+
+        void prepare() {
+            int black = 0, white = 0;
+            for (int[] row : raw) {
+                for (int cell : row) {
+                    if (cell == 1) black++;
+                    else if (cell == 2) white++;
+                }
+            }
+            board = GomokuBot.boardForEngine(raw, black == white ? 1 : 2);
+        }
+
+        boolean accepts(int move) {
+            if (!best.isEmpty() && !best.contains(move)) return false;
+            return !avoid.contains(move);
+        }
+    }
+
+    private static class Result {
+        String name;
+        int move;
+        boolean solved;
+        long timeMillis;
+        long nodes;
+    }
+}